@@ -0,0 +1,132 @@
+package edu.cg.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cg.algebra.Hit;
+import edu.cg.algebra.Ops;
+import edu.cg.algebra.Point;
+import edu.cg.algebra.Ray;
+import edu.cg.algebra.Vec;
+import edu.cg.scene.objects.Dome;
+import edu.cg.scene.objects.Plain;
+import edu.cg.scene.objects.Sphere;
+
+/**
+ * The intersection of a single ray with every shape, for the hit, miss and
+ * (for the sphere) inside cases. The xxxT benchmarks measure the distance-only
+ * intersectT(Ray, double, double) that the BVH traversal uses.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class IntersectionBenchmark {
+	private static final double NO_LIMIT = Double.POSITIVE_INFINITY;
+
+	private Sphere sphere;
+	private Plain plain;
+	private Dome dome;
+
+	private Ray sphereHit, sphereMiss, sphereInside;
+	private Ray plainHit, plainMiss;
+	private Ray domeHit, domeDiskHit, domeMiss;
+
+	@Setup
+	public void setup() {
+		Point origin = new Point(0, 0, 0);
+
+		sphere = new Sphere(new Point(0, 0, -5), 1);
+		sphereHit = new Ray(origin, new Vec(0, 0, -1));
+		sphereMiss = new Ray(origin, new Vec(1, 0, -1));
+		sphereInside = new Ray(new Point(0, 0, -5), new Vec(0, 0.3, -1));
+
+		plain = new Plain(new Vec(0, 1, 0), new Point(0, -1, 0));
+		plainHit = new Ray(origin, new Vec(0, -1, -1));
+		plainMiss = new Ray(origin, new Vec(0, 1, -1));
+
+		// The upper half of a unit ball, closed by a disk at y = 0.
+		dome = new Dome(new Point(0, 0, -5), 1, new Vec(0, 1, 0));
+		domeHit = new Ray(origin, new Vec(0, 0.1, -1));
+		domeDiskHit = new Ray(new Point(0, -2, -5), new Vec(0.1, 1, 0));
+		domeMiss = new Ray(origin, new Vec(0, -0.1, -1));
+	}
+
+	// MARK: Sphere
+
+	@Benchmark
+	public Hit sphereHit() {
+		return sphere.intersect(sphereHit);
+	}
+
+	@Benchmark
+	public Hit sphereMiss() {
+		return sphere.intersect(sphereMiss);
+	}
+
+	@Benchmark
+	public Hit sphereInside() {
+		return sphere.intersect(sphereInside);
+	}
+
+	@Benchmark
+	public double sphereHitT() {
+		return sphere.intersectT(sphereHit, Ops.epsilon, NO_LIMIT);
+	}
+
+	@Benchmark
+	public double sphereMissT() {
+		return sphere.intersectT(sphereMiss, Ops.epsilon, NO_LIMIT);
+	}
+
+	// MARK: Plain
+
+	@Benchmark
+	public Hit plainHit() {
+		return plain.intersect(plainHit);
+	}
+
+	@Benchmark
+	public Hit plainMiss() {
+		return plain.intersect(plainMiss);
+	}
+
+	@Benchmark
+	public double plainHitT() {
+		return plain.intersectT(plainHit, Ops.epsilon, NO_LIMIT);
+	}
+
+	// MARK: Dome
+
+	@Benchmark
+	public Hit domeHit() {
+		return dome.intersect(domeHit);
+	}
+
+	@Benchmark
+	public Hit domeDiskHit() {
+		return dome.intersect(domeDiskHit);
+	}
+
+	@Benchmark
+	public Hit domeMiss() {
+		return dome.intersect(domeMiss);
+	}
+
+	@Benchmark
+	public double domeHitT() {
+		return dome.intersectT(domeHit, Ops.epsilon, NO_LIMIT);
+	}
+}
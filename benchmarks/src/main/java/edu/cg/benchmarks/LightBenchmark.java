@@ -0,0 +1,155 @@
+package edu.cg.benchmarks;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cg.algebra.Point;
+import edu.cg.algebra.Ray;
+import edu.cg.algebra.Vec;
+import edu.cg.scene.lightSources.CutoffSpotlight;
+import edu.cg.scene.lightSources.DirectionalLight;
+import edu.cg.scene.lightSources.Light;
+import edu.cg.scene.lightSources.LightTable;
+import edu.cg.scene.lightSources.PointLight;
+import edu.cg.scene.objects.Material;
+import edu.cg.scene.objects.Sphere;
+import edu.cg.scene.objects.Surface;
+
+/**
+ * The per light work of shading a hit point: the ray to the light, the light
+ * intensity and the occlusion test against a single surface.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LightBenchmark {
+	private Light directional, point, spotlight;
+	private LightTable table; // the same lights, compiled in this order
+	private Point hitPoint;
+	private Ray toDirectional, toPoint, toSpotlight;
+
+	private Surface blocker; // Lies between the hit point and the lights.
+	private Surface bystander; // Lies away from the rays to the lights.
+
+	private Vec intensity;
+
+	@Setup
+	public void setup() {
+		directional = new DirectionalLight(new Vec(0, -1, -0.2), new Vec(0.8));
+		point = new PointLight().initPosition(new Point(0, 5, -5)).initIntensity(new Vec(0.8));
+		spotlight = new CutoffSpotlight(new Vec(0, -1, 0), 45).initPosition(new Point(0, 5, -5))
+				.initIntensity(new Vec(0.8));
+
+		table = LightTable.compile(Arrays.asList(directional, point, spotlight));
+
+		hitPoint = new Point(0.2, -1, -5);
+		toDirectional = directional.rayToLight(hitPoint);
+		toPoint = point.rayToLight(hitPoint);
+		toSpotlight = spotlight.rayToLight(hitPoint);
+
+		blocker = new Surface(new Sphere(new Point(0, 2, -5), 1), Material.getMetalMaterial());
+		bystander = new Surface(new Sphere(new Point(5, 2, -5), 1), Material.getMetalMaterial());
+
+		intensity = new Vec();
+	}
+
+	// MARK: Ray to light
+
+	@Benchmark
+	public Ray directionalRayToLight() {
+		return directional.rayToLight(hitPoint);
+	}
+
+	@Benchmark
+	public Ray pointRayToLight() {
+		return point.rayToLight(hitPoint);
+	}
+
+	@Benchmark
+	public Ray compiledDirectionalRayToLight() {
+		return table.rayToLight(0, hitPoint);
+	}
+
+	@Benchmark
+	public Ray compiledPointRayToLight() {
+		return table.rayToLight(1, hitPoint);
+	}
+
+	// MARK: Intensity
+
+	@Benchmark
+	public Vec directionalIntensity() {
+		return directional.intensity(hitPoint, toDirectional);
+	}
+
+	@Benchmark
+	public Vec pointIntensity() {
+		return point.intensity(hitPoint, toPoint);
+	}
+
+	@Benchmark
+	public Vec spotlightIntensity() {
+		return spotlight.intensity(hitPoint, toSpotlight);
+	}
+
+	@Benchmark
+	public Vec pointIntensityInto() {
+		return point.intensityInto(intensity, hitPoint, toPoint);
+	}
+
+	@Benchmark
+	public Vec spotlightIntensityInto() {
+		return spotlight.intensityInto(intensity, hitPoint, toSpotlight);
+	}
+
+	@Benchmark
+	public Vec compiledPointIntensityInto() {
+		return table.intensityInto(1, intensity, hitPoint, toPoint);
+	}
+
+	@Benchmark
+	public Vec compiledSpotlightIntensityInto() {
+		return table.intensityInto(2, intensity, hitPoint, toSpotlight);
+	}
+
+	// MARK: Occlusion
+
+	@Benchmark
+	public boolean directionalOccluded() {
+		return directional.isOccludedBy(blocker, toDirectional);
+	}
+
+	@Benchmark
+	public boolean directionalNotOccluded() {
+		return directional.isOccludedBy(bystander, toDirectional);
+	}
+
+	@Benchmark
+	public boolean pointOccluded() {
+		return point.isOccludedBy(blocker, toPoint);
+	}
+
+	@Benchmark
+	public boolean pointNotOccluded() {
+		return point.isOccludedBy(bystander, toPoint);
+	}
+
+	@Benchmark
+	public boolean spotlightOccluded() {
+		return spotlight.isOccludedBy(blocker, toSpotlight);
+	}
+}
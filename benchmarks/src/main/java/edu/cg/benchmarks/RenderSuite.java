@@ -0,0 +1,373 @@
+package edu.cg.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import edu.cg.Logger;
+import edu.cg.SceneGenerator;
+import edu.cg.Scenes;
+import edu.cg.scene.RenderEngine;
+import edu.cg.scene.RenderListener;
+import edu.cg.scene.RenderResult;
+import edu.cg.scene.Scene;
+
+/**
+ * An end-to-end render benchmark. It renders the built-in scenes and a few
+ * larger generated ones at fixed resolutions, anti aliasing factors and thread counts,
+ * and reports the wall time, the primary rays per second, the allocation rate
+ * and the peak heap of every case.
+ *
+ * All the scenes are built from a fixed seed, so every run renders exactly the
+ * same images (the checksum column shows it). The results can be saved as a
+ * baseline, and later runs fail (exit code 1) when the wall time or the bytes
+ * allocated per ray of a case regress beyond the threshold.
+ *
+ * Usage: java -cp benchmarks/target/benchmarks.jar edu.cg.benchmarks.RenderSuite [options]
+ */
+public class RenderSuite {
+	private static final String USAGE = "Usage: RenderSuite [options]" + System.lineSeparator()
+			+ "Options:" + System.lineSeparator()
+			+ "  --baseline <file>        the baseline to compare with (default benchmarks/render-baseline.csv)"
+			+ System.lineSeparator()
+			+ "  --save-baseline          save the results as the baseline instead of comparing"
+			+ System.lineSeparator()
+			+ "  --threshold <fraction>   the allowed regression (default 0.10)" + System.lineSeparator()
+			+ "  --warmup <n>             warmup runs of every case (default 2)" + System.lineSeparator()
+			+ "  --runs <n>               measured runs of every case, the fastest counts (default 3)"
+			+ System.lineSeparator()
+			+ "  --filter <regexp>        run only the cases whose name matches";
+
+	private static final long SEED = 20240601L;
+	private static final int SIZE = 400;
+	private static final double VIEW_ANGLE = 90.0;
+	private static final String CSV_HEADER = "case,wall_ms,rays_per_s,alloc_mb_per_s,bytes_per_ray,peak_heap_mb,checksum";
+
+	private Path baselineFile = Paths.get("benchmarks", "render-baseline.csv");
+	private boolean saveBaseline = false;
+	private double threshold = 0.10;
+	private int warmups = 2;
+	private int runs = 3;
+	private Pattern filter = null;
+
+	public static void main(String[] args) {
+		RenderSuite suite = new RenderSuite();
+		try {
+			suite.parseArguments(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			System.exit(suite.run() ? 0 : 1);
+		} catch (IOException e) {
+			System.err.println("Couldn't access the baseline: " + e.getMessage());
+			System.exit(2);
+		} catch (InterruptedException | ExecutionException e) {
+			System.err.println("The render failed: " + e);
+			System.exit(2);
+		}
+	}
+
+	private void parseArguments(String[] args) throws IllegalArgumentException {
+		for (int i = 0; i < args.length; ++i) {
+			String arg = args[i];
+			switch (arg) {
+			case "--baseline":
+				baselineFile = Paths.get(value(args, ++i, arg));
+				break;
+			case "--save-baseline":
+				saveBaseline = true;
+				break;
+			case "--threshold":
+				try {
+					threshold = Double.parseDouble(value(args, ++i, arg));
+				} catch (NumberFormatException e) {
+					throw new IllegalArgumentException(arg + " must be a number.");
+				}
+				if (threshold < 0)
+					throw new IllegalArgumentException(arg + " must not be negative.");
+				break;
+			case "--warmup":
+				warmups = parsePositive(arg, value(args, ++i, arg));
+				break;
+			case "--runs":
+				runs = parsePositive(arg, value(args, ++i, arg));
+				break;
+			case "--filter":
+				filter = Pattern.compile(value(args, ++i, arg));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + arg);
+			}
+		}
+	}
+
+	private static String value(String[] args, int i, String option) {
+		if (i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + option);
+		return args[i];
+	}
+
+	private static int parsePositive(String option, String value) {
+		try {
+			int ans = Integer.parseInt(value);
+			if (ans <= 0)
+				throw new NumberFormatException();
+			return ans;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(option + " must be a positive integer.");
+		}
+	}
+
+	// MARK: cases
+
+	/**
+	 * A single configuration of the suite.
+	 */
+	private static class Case {
+		final String name;
+		final Supplier<Scene> scene;
+		final int size;
+		final int antiAliasingFactor;
+		final int nThreads;
+
+		Case(String sceneName, Supplier<Scene> scene, int size, int antiAliasingFactor, int nThreads) {
+			this.name = sceneName + "/" + size + "x" + size + "/aa" + antiAliasingFactor + "/t" + nThreads;
+			this.scene = scene;
+			this.size = size;
+			this.antiAliasingFactor = antiAliasingFactor;
+			this.nThreads = nThreads;
+		}
+	}
+
+	private static List<Case> cases() {
+		Map<String, Supplier<Scene>> scenes = new LinkedHashMap<>();
+		scenes.put("scene1", Scenes::scene1);
+		scenes.put("scene2", () -> Scenes.scene2(SEED));
+		scenes.put("scene3", () -> Scenes.scene3(SEED));
+		scenes.put("scene4", () -> Scenes.scene4(SEED));
+		scenes.put("scene5", () -> Scenes.scene5(SEED));
+
+		int allThreads = RenderEngine.defaultThreadCount();
+		List<Case> cases = new ArrayList<>();
+		for (Map.Entry<String, Supplier<Scene>> scene : scenes.entrySet()) {
+			cases.add(new Case(scene.getKey(), scene.getValue(), SIZE, 1, 1));
+			cases.add(new Case(scene.getKey(), scene.getValue(), SIZE, 1, allThreads));
+			cases.add(new Case(scene.getKey(), scene.getValue(), SIZE, 2, allThreads));
+		}
+
+		// Large generated scenes, for the acceleration structure.
+		SceneGenerator[] generated = {
+				new SceneGenerator().initSeed(SEED).initObjectCount(1000),
+				new SceneGenerator().initSeed(SEED).initObjectCount(10000),
+				new SceneGenerator().initSeed(SEED).initObjectCount(100000)
+						.initDistribution(SceneGenerator.Distribution.CLUSTERED).initLightCount(3) };
+		for (SceneGenerator generator : generated)
+			cases.add(new Case(generator.getName(), generator::generate, SIZE, 1, allThreads));
+		return cases;
+	}
+
+	// MARK: measurement
+
+	/**
+	 * The measurements of a single case.
+	 */
+	private static class Result {
+		final String name;
+		final double wallMillis;
+		final double raysPerSecond;
+		final double allocMegabytesPerSecond;
+		final double bytesPerRay;
+		final double peakHeapMegabytes;
+		final int checksum;
+
+		Result(String name, double wallMillis, double raysPerSecond, double allocMegabytesPerSecond,
+				double bytesPerRay, double peakHeapMegabytes, int checksum) {
+			this.name = name;
+			this.wallMillis = wallMillis;
+			this.raysPerSecond = raysPerSecond;
+			this.allocMegabytesPerSecond = allocMegabytesPerSecond;
+			this.bytesPerRay = bytesPerRay;
+			this.peakHeapMegabytes = peakHeapMegabytes;
+			this.checksum = checksum;
+		}
+
+		String toCsv() {
+			return String.format("%s,%.3f,%.1f,%.3f,%.3f,%.3f,%d", name, wallMillis, raysPerSecond,
+					allocMegabytesPerSecond, bytesPerRay, peakHeapMegabytes, checksum);
+		}
+
+		static Result fromCsv(String line) {
+			String[] fields = line.split(",");
+			return new Result(fields[0], Double.parseDouble(fields[1]), Double.parseDouble(fields[2]),
+					Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Double.parseDouble(fields[5]),
+					Integer.parseInt(fields[6]));
+		}
+	}
+
+	private boolean run() throws IOException, InterruptedException, ExecutionException {
+		Map<String, Result> baseline = saveBaseline ? new LinkedHashMap<>() : loadBaseline();
+		List<Result> results = new ArrayList<>();
+		boolean success = true;
+
+		System.out.println(String.format("%-50s %10s %12s %10s %10s %10s  %s", "case", "wall ms", "rays/s",
+				"alloc MB/s", "B/ray", "heap MB", "vs. baseline"));
+		for (Case c : cases()) {
+			if (filter != null && !filter.matcher(c.name).find())
+				continue;
+
+			Result result = measure(c);
+			results.add(result);
+			String verdict = saveBaseline ? "" : compare(result, baseline.get(c.name));
+			success &= !verdict.startsWith("REGRESSION");
+			System.out.println(String.format("%-50s %10.1f %12.0f %10.1f %10.1f %10.1f  %s", result.name,
+					result.wallMillis, result.raysPerSecond, result.allocMegabytesPerSecond, result.bytesPerRay,
+					result.peakHeapMegabytes, verdict));
+		}
+
+		if (saveBaseline) {
+			if (baselineFile.getParent() != null)
+				Files.createDirectories(baselineFile.getParent());
+			try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(baselineFile))) {
+				writer.println(CSV_HEADER);
+				for (Result result : results)
+					writer.println(result.toCsv());
+			}
+			System.out.println("Saved the baseline to " + baselineFile);
+		}
+		return success;
+	}
+
+	/**
+	 * Renders the case a few times to warm up, and then the given number of times.
+	 * The fastest run is reported, along with its allocations and peak heap.
+	 */
+	private Result measure(Case c) throws InterruptedException, ExecutionException {
+		Scene scene = c.scene.get().initAntiAliasingFactor(c.antiAliasingFactor);
+		Logger logger = s -> {
+		};
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+
+		try (RenderEngine engine = new RenderEngine(c.nThreads, "suite")) {
+			// Anti aliasing is adaptive, so the primary rays are counted rather than computed.
+			RenderResult first = engine.renderWithStats(scene, c.size, c.size, VIEW_ANGLE, logger, RenderListener.NONE);
+			BufferedImage img = first.image();
+			long rays = first.stats().primaryRays();
+			int checksum = Arrays.hashCode(img.getRGB(0, 0, c.size, c.size, null, 0, c.size));
+			for (int i = 1; i < warmups; ++i)
+				engine.render(scene, c.size, c.size, VIEW_ANGLE, logger);
+
+			long bestNanos = Long.MAX_VALUE;
+			long bestBytes = 0;
+			double peakHeap = 0;
+			for (int i = 0; i < runs; ++i) {
+				System.gc();
+				resetPeakHeap();
+				long bytesBefore = allocatedBytes(threads);
+				long start = System.nanoTime();
+				engine.render(scene, c.size, c.size, VIEW_ANGLE, logger);
+				long nanos = System.nanoTime() - start;
+				long bytes = allocatedBytes(threads) - bytesBefore;
+
+				peakHeap = Math.max(peakHeap, peakHeap());
+				if (nanos < bestNanos) {
+					bestNanos = nanos;
+					bestBytes = bytes;
+				}
+			}
+
+			double seconds = bestNanos / 1e9;
+			return new Result(c.name, bestNanos / 1e6, rays / seconds, bestBytes / 1e6 / seconds,
+					(double) bestBytes / rays, peakHeap / 1e6, checksum);
+		}
+	}
+
+	/**
+	 * Returns the bytes allocated so far by all the live threads, including the
+	 * threads of the render engine.
+	 */
+	private static long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+		long sum = 0;
+		for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds()))
+			if (bytes > 0)
+				sum += bytes;
+		return sum;
+	}
+
+	private static void resetPeakHeap() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				pool.resetPeakUsage();
+	}
+
+	/**
+	 * Returns the sum of the peak usages of the heap pools since the last reset.
+	 * The pools may peak at different times, so it is an upper bound of the peak heap.
+	 */
+	private static double peakHeap() {
+		double sum = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			if (pool.getType() == MemoryType.HEAP)
+				sum += pool.getPeakUsage().getUsed();
+		return sum;
+	}
+
+	// MARK: baseline
+
+	private Map<String, Result> loadBaseline() throws IOException {
+		Map<String, Result> baseline = new LinkedHashMap<>();
+		if (!Files.exists(baselineFile)) {
+			System.out.println("No baseline at " + baselineFile + ", run with --save-baseline to create one.");
+			return baseline;
+		}
+
+		for (String line : Files.readAllLines(baselineFile)) {
+			if (line.isEmpty() || line.equals(CSV_HEADER))
+				continue;
+			Result result = Result.fromCsv(line);
+			baseline.put(result.name, result);
+		}
+		return baseline;
+	}
+
+	/**
+	 * Compares a result with its baseline. The wall time and the bytes allocated
+	 * per ray are gated; a different checksum means that the rendered image has
+	 * changed, which is reported but doesn't fail the run.
+	 */
+	private String compare(Result result, Result base) {
+		if (base == null)
+			return "no baseline";
+
+		List<String> regressions = new ArrayList<>();
+		if (result.wallMillis > base.wallMillis * (1 + threshold))
+			regressions.add(String.format("wall time %+.0f%%", 100 * (result.wallMillis / base.wallMillis - 1)));
+		if (result.bytesPerRay > base.bytesPerRay * (1 + threshold) && result.bytesPerRay - base.bytesPerRay > 1)
+			regressions.add(String.format("allocation %+.0f%%", 100 * (result.bytesPerRay / base.bytesPerRay - 1)));
+
+		String verdict = regressions.isEmpty()
+				? String.format("ok (%+.0f%%)", 100 * (result.wallMillis / base.wallMillis - 1))
+				: "REGRESSION: " + String.join(", ", regressions);
+		if (result.checksum != base.checksum)
+			verdict += ", image changed";
+		return verdict;
+	}
+}
@@ -0,0 +1,70 @@
+package edu.cg.scene;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cg.algebra.Hit;
+import edu.cg.algebra.Ops;
+import edu.cg.algebra.Point;
+import edu.cg.algebra.Ray;
+import edu.cg.algebra.Vec;
+import edu.cg.scene.objects.Material;
+import edu.cg.scene.objects.Sphere;
+import edu.cg.scene.objects.Surface;
+
+/**
+ * The Phong terms of the shading, as computed by the Scene. It lives in the
+ * package of the Scene so it can call the package-private terms directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PhongBenchmark {
+	private Hit hit;
+	private Ray rayFromCamera, rayToLight;
+	private Vec scratch;
+	private double shininess;
+
+	@Setup
+	public void setup() {
+		Surface surface = new Surface(new Sphere(new Point(0, 0, -5), 1), Material.getMetalMaterial());
+		rayFromCamera = new Ray(new Point(0, 0, 0), new Vec(0.1, 0.1, -1));
+		hit = surface.intersect(rayFromCamera);
+		rayToLight = new Ray(rayFromCamera.getHittingPoint(hit), new Vec(0.5, 1, 1));
+		scratch = new Vec();
+		shininess = surface.shininess();
+	}
+
+	@Benchmark
+	public double diffuse() {
+		return Scene.getDiffuse(hit, rayToLight);
+	}
+
+	@Benchmark
+	public double specular() {
+		return Scene.getSpecular(hit, shininess, rayToLight, rayFromCamera, scratch);
+	}
+
+	@Benchmark
+	public Vec reflect() {
+		return Ops.reflect(rayFromCamera.direction(), hit.getNormalToSurface());
+	}
+
+	@Benchmark
+	public Vec reflectInto() {
+		return Ops.reflectInto(scratch, rayFromCamera.direction(), hit.getNormalToSurface());
+	}
+}
@@ -0,0 +1,259 @@
+package edu.cg;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.Gson;
+
+import edu.cg.menu.GsonMaker;
+import edu.cg.scene.RenderEngine;
+import edu.cg.scene.RenderListener;
+import edu.cg.scene.RenderResult;
+import edu.cg.scene.RenderStats;
+import edu.cg.scene.SamplingPattern;
+import edu.cg.scene.Scene;
+import edu.cg.scene.TileCosts;
+
+/**
+ * A headless entry point that renders a batch of scene files to PNG images,
+ * without opening any window.
+ *
+ * Usage: BatchRenderer [options] scene.json|glob...
+ *
+ * The scene files are in the format that is written by the scenes creator
+ * (e.g. scenes/scene1.json). Glob patterns such as "scenes/*.json" are expanded
+ * by the renderer as well, for shells that don't expand them. All the scenes
+ * are rendered, one after the other, on a single shared render engine.
+ */
+public class BatchRenderer {
+	private static final String USAGE = "Usage: BatchRenderer [options] scene.json|glob..." + System.lineSeparator()
+			+ "Options:" + System.lineSeparator()
+			+ "  -w, --width <pixels>     image width (default 400)" + System.lineSeparator()
+			+ "  -h, --height <pixels>    image height (default 400)" + System.lineSeparator()
+			+ "  -a, --angle <degrees>    view angle in (0, 180) (default 90)" + System.lineSeparator()
+			+ "  --aa <1|2|3>             anti aliasing factor (default: the scene's own)" + System.lineSeparator()
+			+ "  --sampling <pattern>     anti aliasing samples: grid, jittered or corners (default: the scene's own)"
+			+ System.lineSeparator()
+			+ "  -t, --threads <n>        number of render threads (default: available processors)"
+			+ System.lineSeparator()
+			+ "  -o, --output <dir>       output folder (default outputs)" + System.lineSeparator()
+			+ "  -c, --costs              also write the cost of every tile, as <scene>-costs.png and .csv"
+			+ System.lineSeparator()
+			+ "  -v, --verbose            print the render log";
+
+	private int width = 400;
+	private int height = 400;
+	private double viewAngle = 90.0;
+	private int antiAliasingFactor = 0; // 0 keeps the factor of each scene
+	private SamplingPattern samplingPattern = null; // null keeps the pattern of each scene
+	private int nThreads = RenderEngine.defaultThreadCount();
+	private File outputDir = new File("outputs");
+	private boolean verbose = false;
+	private boolean writeCosts = false;
+	private List<Path> sceneFiles = new ArrayList<>();
+
+	public static void main(String[] args) {
+		BatchRenderer renderer = new BatchRenderer();
+		try {
+			renderer.parseArguments(args);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		System.exit(renderer.run() ? 0 : 1);
+	}
+
+	private void parseArguments(String[] args) throws IllegalArgumentException {
+		for (int i = 0; i < args.length; ++i) {
+			String arg = args[i];
+			switch (arg) {
+			case "-w":
+			case "--width":
+				width = parsePositive(arg, value(args, ++i, arg));
+				break;
+			case "-h":
+			case "--height":
+				height = parsePositive(arg, value(args, ++i, arg));
+				break;
+			case "-a":
+			case "--angle":
+				viewAngle = parseDouble(arg, value(args, ++i, arg));
+				if (viewAngle <= 0.0 || viewAngle >= 180.0)
+					throw new IllegalArgumentException("View angle must be in the range (0.0, 180.0) exclusive.");
+				break;
+			case "--aa":
+				antiAliasingFactor = parsePositive(arg, value(args, ++i, arg));
+				if (antiAliasingFactor > 3)
+					throw new IllegalArgumentException("Anti aliasing factor must be 1, 2 or 3.");
+				break;
+			case "--sampling":
+				samplingPattern = parseSamplingPattern(arg, value(args, ++i, arg));
+				break;
+			case "-t":
+			case "--threads":
+				nThreads = parsePositive(arg, value(args, ++i, arg));
+				break;
+			case "-o":
+			case "--output":
+				outputDir = new File(value(args, ++i, arg));
+				break;
+			case "-c":
+			case "--costs":
+				writeCosts = true;
+				break;
+			case "-v":
+			case "--verbose":
+				verbose = true;
+				break;
+			default:
+				if (arg.startsWith("-"))
+					throw new IllegalArgumentException("Unknown option: " + arg);
+				sceneFiles.addAll(expand(arg));
+			}
+		}
+
+		if (sceneFiles.isEmpty())
+			throw new IllegalArgumentException("No scene files were given.");
+	}
+
+	private static String value(String[] args, int i, String option) {
+		if (i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + option);
+		return args[i];
+	}
+
+	private static int parsePositive(String option, String value) {
+		try {
+			int ans = Integer.parseInt(value);
+			if (ans <= 0)
+				throw new NumberFormatException();
+			return ans;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(option + " must be a positive integer.");
+		}
+	}
+
+	private static double parseDouble(String option, String value) {
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(option + " must be a number.");
+		}
+	}
+
+	private static SamplingPattern parseSamplingPattern(String option, String value) {
+		switch (value) {
+		case "grid":
+			return SamplingPattern.GRID;
+		case "jittered":
+			return SamplingPattern.JITTERED;
+		case "corners":
+			return SamplingPattern.SHARED_CORNERS;
+		default:
+			throw new IllegalArgumentException(option + " must be grid, jittered or corners.");
+		}
+	}
+
+	/**
+	 * Expands a glob pattern (in its file name part) to the matching files, in
+	 * alphabetical order. Arguments without wildcards are returned as is.
+	 */
+	private static List<Path> expand(String arg) {
+		Path path = Paths.get(arg);
+		String pattern = path.getFileName().toString();
+		if (!pattern.contains("*") && !pattern.contains("?") && !pattern.contains("["))
+			return Collections.singletonList(path);
+
+		Path dir = path.getParent() == null ? Paths.get(".") : path.getParent();
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, pattern)) {
+			for (Path file : stream)
+				files.add(file);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Can't list " + dir + ": " + e.getMessage());
+		}
+
+		if (files.isEmpty())
+			throw new IllegalArgumentException("No scene files match " + arg);
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Renders all the scenes and prints the statistics of every render.
+	 * @return true if all the scenes have been rendered successfully.
+	 */
+	private boolean run() {
+		if (!outputDir.exists() && !outputDir.mkdirs()) {
+			System.err.println("Couldn't create the folder " + outputDir);
+			return false;
+		}
+
+		Logger logger = verbose ? System.out::println : s -> {
+		};
+		boolean success = true;
+		long totalRays = 0;
+		long totalNanos = 0;
+
+		System.out.println("Rendering " + sceneFiles.size() + " scenes at " + width + "x" + height + " using "
+				+ nThreads + " threads");
+		try (RenderEngine engine = new RenderEngine(nThreads, "batch")) {
+			for (Path sceneFile : sceneFiles) {
+				try {
+					Scene scene = load(sceneFile);
+					if (antiAliasingFactor > 0)
+						scene.initAntiAliasingFactor(antiAliasingFactor);
+					if (samplingPattern != null)
+						scene.initSamplingPattern(samplingPattern);
+
+					RenderResult result = engine.renderWithStats(scene, width, height, viewAngle, logger,
+							RenderListener.NONE);
+					RenderStats stats = result.stats();
+
+					File output = new File(outputDir, scene.getName() + ".png");
+					ImageWriteEvent.write(result.image(), "png", output);
+					if (writeCosts)
+						writeCosts(result.tileCosts(), scene.getName());
+
+					totalRays += stats.totalRays();
+					totalNanos += stats.wallNanos();
+					System.out.println(String.format(
+							"%-20s %10.1f ms %14.0f rays/s (%d primary, %d shadow, %d reflection, %d refraction) -> %s",
+							scene.getName(), stats.wallNanos() / 1e6, stats.raysPerSecond(), stats.primaryRays(),
+							stats.shadowRays(), stats.reflectionRays(), stats.refractionRays(), output.getPath()));
+				} catch (Exception e) {
+					success = false;
+					System.err.println("Couldn't render " + sceneFile + ": " + e);
+				}
+			}
+		}
+
+		if (totalNanos > 0)
+			System.out.println(String.format("%-20s %10.1f ms %14.0f rays/s", "total", totalNanos / 1e6,
+					totalRays / (totalNanos / 1e9)));
+		return success;
+	}
+
+	private void writeCosts(TileCosts costs, String sceneName) throws IOException {
+		ImageWriteEvent.write(costs.toImage(), "png", new File(outputDir, sceneName + "-costs.png"));
+		try (Writer out = Files.newBufferedWriter(new File(outputDir, sceneName + "-costs.csv").toPath())) {
+			costs.writeCsv(out);
+		}
+	}
+
+	private static Scene load(Path sceneFile) throws IOException {
+		Gson gson = GsonMaker.getInstance();
+		String json = new String(Files.readAllBytes(sceneFile));
+		return gson.fromJson(json, Scene.class);
+	}
+}
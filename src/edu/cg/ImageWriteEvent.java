@@ -0,0 +1,61 @@
+package edu.cg;
+
+import java.awt.image.RenderedImage;
+import java.io.File;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event of the encoding and writing of a rendered image.
+ */
+@Name("edu.cg.ImageWrite")
+@Label("Image Write")
+@Category("Ray Tracer")
+@Description("The encoding and writing of a rendered image")
+public class ImageWriteEvent extends Event {
+	@Label("File")
+	String path;
+
+	@Label("Format")
+	String format;
+
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	@Label("Size")
+	@DataAmount
+	long bytes;
+
+	/**
+	 * Writes the image with ImageIO, within an event.
+	 * @param img - the image to write
+	 * @param format - the informal name of the format, e.g. "png"
+	 * @param file - the destination file
+	 */
+	public static void write(RenderedImage img, String format, File file) throws IOException {
+		ImageWriteEvent event = new ImageWriteEvent();
+		event.begin();
+		if (!ImageIO.write(img, format, file))
+			throw new IOException("No writer for the format " + format);
+		event.end();
+		if (event.shouldCommit()) {
+			event.path = file.getPath();
+			event.format = format;
+			event.width = img.getWidth();
+			event.height = img.getHeight();
+			event.bytes = file.length();
+			event.commit();
+		}
+	}
+}
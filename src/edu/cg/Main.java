@@ -7,9 +7,15 @@ import edu.cg.menu.MenuWindow;
 public class Main {
 	
 	/**
-	 * Launch the application.
+	 * Launch the application. When scene files are given as arguments, they are
+	 * rendered headlessly by the BatchRenderer instead.
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0) {
+			BatchRenderer.main(args);
+			return;
+		}
+		
 		File scenesDir = new File("scenes");
 		if(!scenesDir.exists() && !scenesDir.mkdir())
 			throw new RuntimeException("Couldn't create the folder scenes...");
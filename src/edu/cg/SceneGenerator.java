@@ -0,0 +1,360 @@
+package edu.cg;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import com.google.gson.Gson;
+
+import edu.cg.algebra.Point;
+import edu.cg.algebra.Vec;
+import edu.cg.menu.GsonMaker;
+import edu.cg.scene.Scene;
+import edu.cg.scene.lightSources.CutoffSpotlight;
+import edu.cg.scene.lightSources.DirectionalLight;
+import edu.cg.scene.lightSources.PointLight;
+import edu.cg.scene.objects.Dome;
+import edu.cg.scene.objects.Material;
+import edu.cg.scene.objects.Plain;
+import edu.cg.scene.objects.Shape;
+import edu.cg.scene.objects.Sphere;
+import edu.cg.scene.objects.Surface;
+
+/**
+ * Generates large procedural scenes for stress tests and benchmarks: a floor,
+ * objectCount spheres and domes spread over a volume, and lightCount lights.
+ *
+ * Everything is drawn from a single generator seeded with the given seed, so
+ * the same parameters always give the same scene. The volume grows with the
+ * number of objects, so their density (and the look of the scene from the
+ * camera) stays about the same from a hundred objects to millions of them.
+ *
+ * Usage: SceneGenerator [options] output.json
+ */
+public class SceneGenerator {
+	/**
+	 * How the objects are spread over the volume.
+	 */
+	public enum Distribution {
+		/** Uniformly at random. */
+		UNIFORM,
+		/** In normally distributed clusters around random centers. */
+		CLUSTERED,
+		/** On a regular lattice, slightly jittered. */
+		GRID
+	}
+
+	private static final String USAGE = "Usage: SceneGenerator [options] output.json" + System.lineSeparator()
+			+ "Options:" + System.lineSeparator()
+			+ "  -n, --objects <n>            number of objects (default 1000)" + System.lineSeparator()
+			+ "  -s, --seed <n>               random seed (default 0)" + System.lineSeparator()
+			+ "  -d, --distribution <name>    uniform, clustered or grid (default uniform)" + System.lineSeparator()
+			+ "  -l, --lights <n>             number of lights (default 2)" + System.lineSeparator()
+			+ "  -m, --materials <m,g,r>      weights of the metal, glass and random colored materials"
+			+ System.lineSeparator()
+			+ "                               (default 1,1,8)" + System.lineSeparator()
+			+ "  --domes <fraction>           fraction of the objects that are domes (default 0)"
+			+ System.lineSeparator()
+			+ "  --name <name>                scene name (default generated)";
+
+	// The number of objects in a volume of DENSITY_VOLUME_EDGE^3.
+	private static final int DENSITY_OBJECTS = 1000;
+	private static final double DENSITY_VOLUME_EDGE = 20.0;
+	// Materials are drawn once into a palette that the objects share, so that
+	// millions of objects don't hold millions of materials.
+	private static final int PALETTE_SIZE = 64;
+
+	private long seed = 0;
+	private int objectCount = 1000;
+	private Distribution distribution = Distribution.UNIFORM;
+	private int lightCount = 2;
+	private double metalWeight = 1, glassWeight = 1, randomWeight = 8;
+	private double domeFraction = 0;
+	private String name = null;
+
+	// MARK: initializers
+	public SceneGenerator initSeed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	public SceneGenerator initObjectCount(int objectCount) {
+		if (objectCount < 0)
+			throw new IllegalArgumentException("The number of objects must not be negative.");
+		this.objectCount = objectCount;
+		return this;
+	}
+
+	public SceneGenerator initDistribution(Distribution distribution) {
+		this.distribution = distribution;
+		return this;
+	}
+
+	public SceneGenerator initLightCount(int lightCount) {
+		if (lightCount < 0)
+			throw new IllegalArgumentException("The number of lights must not be negative.");
+		this.lightCount = lightCount;
+		return this;
+	}
+
+	/**
+	 * Sets the relative weights of the metal, glass and random colored materials.
+	 */
+	public SceneGenerator initMaterialMix(double metalWeight, double glassWeight, double randomWeight) {
+		if (metalWeight < 0 | glassWeight < 0 | randomWeight < 0 | metalWeight + glassWeight + randomWeight <= 0)
+			throw new IllegalArgumentException("The material weights must not be negative, and not all zero.");
+		this.metalWeight = metalWeight;
+		this.glassWeight = glassWeight;
+		this.randomWeight = randomWeight;
+		return this;
+	}
+
+	public SceneGenerator initDomeFraction(double domeFraction) {
+		if (domeFraction < 0 | domeFraction > 1)
+			throw new IllegalArgumentException("The fraction of domes must be between 0 and 1.");
+		this.domeFraction = domeFraction;
+		return this;
+	}
+
+	public SceneGenerator initName(String name) {
+		this.name = name;
+		return this;
+	}
+
+	/**
+	 * Returns the scene name, which is derived from the parameters unless it was set.
+	 */
+	public String getName() {
+		if (name != null)
+			return name;
+		return "generated-" + distribution.name().toLowerCase() + "-" + objectCount + "-" + seed;
+	}
+
+	// MARK: generation
+
+	/**
+	 * Generates the scene.
+	 * @return a new scene, the same for the same parameters.
+	 */
+	public Scene generate() {
+		Random rand = new Random(seed);
+		// The edge of the volume grows with the cube root of the number of objects.
+		double extent = DENSITY_VOLUME_EDGE * Math.cbrt(Math.max(objectCount, 1) / (double) DENSITY_OBJECTS);
+
+		// The camera looks at the volume from its front, slightly from above.
+		Scene scene = new Scene().initName(getName()).initAmbient(new Vec(0.3)).initAntiAliasingFactor(1)
+				.initCamera(new Point(0.0, 0.6 * extent, 1.2 * extent), new Vec(0.0, -0.4, -1.0),
+						new Vec(0.0, 1.0, 0.0), 2.0)
+				.initRenderRefarctions(true).initRenderReflections(true).initMaxRecursionLevel(4);
+		scene.addSurface(new Surface(new Plain(new Vec(0.0, 1.0, 0.0), new Point(0.0, -1.0, 0.0)),
+				Material.getMetalMaterial()));
+
+		Material[] palette = new Material[PALETTE_SIZE];
+		for (int i = 0; i < palette.length; ++i)
+			palette[i] = material(rand);
+
+		PointSource points = pointSource(rand, extent);
+		for (int i = 0; i < objectCount; ++i) {
+			Point center = points.next(i);
+			double radius = 0.2 + 0.6 * rand.nextDouble();
+			Shape shape = rand.nextDouble() < domeFraction
+					? new Dome(center, radius, new Vec(rand.nextGaussian(), rand.nextGaussian(), rand.nextGaussian()))
+					: new Sphere(center, radius);
+			scene.addSurface(new Surface(shape, palette[rand.nextInt(palette.length)]));
+		}
+
+		for (int i = 0; i < lightCount; ++i)
+			addLight(scene, rand, i, extent);
+		return scene;
+	}
+
+	/**
+	 * Generates the scene into a JSON file, in the format of the scenes creator,
+	 * which can be loaded by the UI and the batch renderer.
+	 * @param file - the output file
+	 */
+	public void writeJson(Path file) throws IOException {
+		Gson gson = GsonMaker.getInstance();
+		Scene scene = generate();
+		if (file.getParent() != null)
+			Files.createDirectories(file.getParent());
+		try (Writer writer = Files.newBufferedWriter(file)) {
+			gson.toJson(scene, Scene.class, writer);
+		}
+	}
+
+	private Material material(Random rand) {
+		double pick = rand.nextDouble() * (metalWeight + glassWeight + randomWeight);
+		if (pick < metalWeight)
+			return Material.getMetalMaterial();
+		if (pick < metalWeight + glassWeight)
+			return Material.getGlassMaterial(rand.nextDouble() < 0.5, rand);
+		return Material.getRandomMaterial(rand);
+	}
+
+	/**
+	 * The first light is a directional light, and the others alternate between
+	 * spotlights and point lights over the volume.
+	 */
+	private static void addLight(Scene scene, Random rand, int index, double extent) {
+		if (index == 0) {
+			scene.addLightSource(new DirectionalLight(new Vec(0.5, -0.5, -0.2), new Vec(0.6)));
+			return;
+		}
+
+		Point position = new Point((rand.nextDouble() - 0.5) * extent, extent, -rand.nextDouble() * extent);
+		Vec intensity = new Vec(0.5 + 0.5 * rand.nextDouble(), 0.5 + 0.5 * rand.nextDouble(),
+				0.5 + 0.5 * rand.nextDouble());
+		if (index % 2 == 1)
+			scene.addLightSource(new CutoffSpotlight(new Vec(0.0, -1.0, 0.0), 30.0 + 30.0 * rand.nextDouble())
+					.initPosition(position).initIntensity(intensity));
+		else
+			scene.addLightSource(new PointLight().initPosition(position).initIntensity(intensity));
+	}
+
+	// MARK: distributions
+
+	/**
+	 * Produces the centers of the objects. The volume spans [-extent, extent]
+	 * along x, [0, extent / 2] along y (above the floor), and [-2 * extent, 0]
+	 * along z.
+	 */
+	private interface PointSource {
+		Point next(int index);
+	}
+
+	private PointSource pointSource(Random rand, double extent) {
+		switch (distribution) {
+		case CLUSTERED: {
+			int clusters = Math.max(1, (int) Math.sqrt(objectCount) / 4);
+			Point[] centers = new Point[clusters];
+			for (int i = 0; i < clusters; ++i)
+				centers[i] = uniform(rand, extent);
+			double spread = extent / Math.cbrt(clusters) / 4;
+			return index -> {
+				Point center = centers[rand.nextInt(clusters)];
+				return new Point(center.x + spread * rand.nextGaussian(),
+						Math.max(0, center.y + spread * rand.nextGaussian()), center.z + spread * rand.nextGaussian());
+			};
+		}
+		case GRID: {
+			// A lattice of cells whose aspect follows the volume (2 : 0.5 : 2).
+			int n = Math.max(1, (int) Math.ceil(Math.cbrt(objectCount / 2.0)));
+			int nx = 2 * n, ny = Math.max(1, n / 2), nz = 2 * n;
+			double cellX = 2 * extent / nx, cellY = extent / 2 / ny, cellZ = 2 * extent / nz;
+			return index -> {
+				int cell = index % (nx * ny * nz);
+				int x = cell % nx, y = (cell / nx) % ny, z = cell / (nx * ny);
+				return new Point(-extent + (x + 0.5 + 0.2 * (rand.nextDouble() - 0.5)) * cellX,
+						(y + 0.5 + 0.2 * (rand.nextDouble() - 0.5)) * cellY,
+						-(z + 0.5 + 0.2 * (rand.nextDouble() - 0.5)) * cellZ);
+			};
+		}
+		default:
+			return index -> uniform(rand, extent);
+		}
+	}
+
+	private static Point uniform(Random rand, double extent) {
+		return new Point((2 * rand.nextDouble() - 1) * extent, rand.nextDouble() * extent / 2,
+				-2 * rand.nextDouble() * extent);
+	}
+
+	// MARK: command line
+
+	public static void main(String[] args) {
+		SceneGenerator generator = new SceneGenerator();
+		Path output = null;
+		try {
+			for (int i = 0; i < args.length; ++i) {
+				String arg = args[i];
+				switch (arg) {
+				case "-n":
+				case "--objects":
+					generator.initObjectCount(parseInt(arg, value(args, ++i, arg)));
+					break;
+				case "-s":
+				case "--seed":
+					try {
+						generator.initSeed(Long.parseLong(value(args, ++i, arg)));
+					} catch (NumberFormatException e) {
+						throw new IllegalArgumentException(arg + " must be an integer.");
+					}
+					break;
+				case "-d":
+				case "--distribution":
+					String distribution = value(args, ++i, arg);
+					try {
+						generator.initDistribution(Distribution.valueOf(distribution.toUpperCase()));
+					} catch (IllegalArgumentException e) {
+						throw new IllegalArgumentException("Unknown distribution: " + distribution);
+					}
+					break;
+				case "-l":
+				case "--lights":
+					generator.initLightCount(parseInt(arg, value(args, ++i, arg)));
+					break;
+				case "-m":
+				case "--materials":
+					String[] weights = value(args, ++i, arg).split(",");
+					if (weights.length != 3)
+						throw new IllegalArgumentException(arg + " must be three comma separated weights.");
+					generator.initMaterialMix(parseDouble(arg, weights[0]), parseDouble(arg, weights[1]),
+							parseDouble(arg, weights[2]));
+					break;
+				case "--domes":
+					generator.initDomeFraction(parseDouble(arg, value(args, ++i, arg)));
+					break;
+				case "--name":
+					generator.initName(value(args, ++i, arg));
+					break;
+				default:
+					if (arg.startsWith("-") || output != null)
+						throw new IllegalArgumentException("Unknown option: " + arg);
+					output = Paths.get(arg);
+				}
+			}
+			if (output == null)
+				throw new IllegalArgumentException("No output file was given.");
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println(USAGE);
+			System.exit(2);
+		}
+
+		try {
+			long start = System.nanoTime();
+			generator.writeJson(output);
+			System.out.println(String.format("Generated %s with %d objects in %.1f s -> %s", generator.getName(),
+					generator.objectCount, (System.nanoTime() - start) / 1e9, output));
+		} catch (IOException e) {
+			System.err.println("Couldn't write " + output + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	private static String value(String[] args, int i, String option) {
+		if (i >= args.length)
+			throw new IllegalArgumentException("Missing value for " + option);
+		return args[i];
+	}
+
+	private static int parseInt(String option, String value) {
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(option + " must be an integer.");
+		}
+	}
+
+	private static double parseDouble(String option, String value) {
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(option + " must be a number.");
+		}
+	}
+}
@@ -31,6 +31,18 @@ public class Scenes {
 	}
 
 	public static Scene scene2() {
+		return scene2(new Random());
+	}
+
+	/**
+	 * Creates scene2 with the random materials drawn from a generator with the
+	 * given seed, so the same seed always gives the same scene.
+	 */
+	public static Scene scene2(long seed) {
+		return scene2(new Random(seed));
+	}
+
+	private static Scene scene2(Random rand) {
 		// Define basic properties of the scene
 		Scene finalScene = new Scene().initAmbient(new Vec(1.0))
 				.initCamera(/* Camera Position = */new Point(0.0, 2.0, 6.0), 
@@ -51,7 +63,7 @@ public class Scenes {
 		for (int depth = 0; depth < 4; depth++) {
 			for(int width=-1*depth; width<=depth; width++) {
 				Shape sphereShape = new Sphere(new Point((double)width, 0.0, -1.0*(double)depth), 0.5);
-				Material sphereMat = Material.getRandomMaterial();
+				Material sphereMat = Material.getRandomMaterial(rand);
 				Surface sphereSurface = new Surface(sphereShape, sphereMat);
 				finalScene.addSurface(sphereSurface);
 			}
@@ -66,6 +78,18 @@ public class Scenes {
 	}
 	
 	public static Scene scene3() {
+		return scene3(new Random());
+	}
+
+	/**
+	 * Creates scene3 with the random materials drawn from a generator with the
+	 * given seed, so the same seed always gives the same scene.
+	 */
+	public static Scene scene3(long seed) {
+		return scene3(new Random(seed));
+	}
+
+	private static Scene scene3(Random rand) {
 		// Define basic properties of the scene
 		Scene finalScene = new Scene().initAmbient(new Vec(1.0))
 				.initCamera(/* Camera Position = */new Point(0.0, 2.0, 6.0), 
@@ -85,7 +109,7 @@ public class Scenes {
 		for (int depth = 0; depth < 4; depth++) {
 			for(int width=-1*depth; width<=depth; width++) {
 				Shape sphereShape = new Sphere(new Point((double)width, 0.0, -1.0*(double)depth), 0.5);
-				Material sphereMat = Material.getRandomMaterial();
+				Material sphereMat = Material.getRandomMaterial(rand);
 				Surface sphereSurface = new Surface(sphereShape, sphereMat);
 				finalScene.addSurface(sphereSurface);
 			}
@@ -112,6 +136,18 @@ public class Scenes {
 	}
 
 	public static Scene scene4() {
+		return scene4(new Random());
+	}
+
+	/**
+	 * Creates scene4 with the random materials drawn from a generator with the
+	 * given seed, so the same seed always gives the same scene.
+	 */
+	public static Scene scene4(long seed) {
+		return scene4(new Random(seed));
+	}
+
+	private static Scene scene4(Random rand) {
 		// Define basic properties of the scene
 		Scene finalScene = new Scene().initAmbient(new Vec(1.0))
 				.initCamera(/* Camera Position = */new Point(0.0, 2.0, 6.0), 
@@ -124,7 +160,7 @@ public class Scenes {
 		
 		// (2) Add two domes to make it look like we split a sphere in half. 
 		Shape domeShape = new Dome(new Point(2.0, 0.0, -10.0), 5.0, new Vec(1.0, 0.0, 0.0));
-		Material domeMat = Material.getRandomMaterial();
+		Material domeMat = Material.getRandomMaterial(rand);
 		Surface domeSurface = new Surface(domeShape, domeMat);
 		finalScene.addSurface(domeSurface);
 		
@@ -146,6 +182,19 @@ public class Scenes {
 	 * @return the created Scene
 	 */
 	public static Scene scene5() {
+		return scene5(new Random());
+	}
+
+	/**
+	 * Creates scene5 with the background, the spheres and their materials drawn
+	 * from a generator with the given seed, so the same seed always gives the
+	 * same scene.
+	 */
+	public static Scene scene5(long seed) {
+		return scene5(new Random(seed));
+	}
+
+	private static Scene scene5(Random rand) {
 		// Define basic properties of the scene
 		Scene finalScene = new Scene().initAmbient(new Vec(1.0))
 				.initCamera(/* Camera Position = */new Point(4, 2.0, 6.0),
@@ -155,7 +204,7 @@ public class Scenes {
 				.initName("scene5").initAntiAliasingFactor(1)
 				.initAmbient(new Vec(0.5))
 				.initRenderRefarctions(false).initRenderReflections(true).initMaxRecursionLevel(9)
-				.initBackgroundColor(new Vec(Math.random(), Math.random(), Math.random()));
+				.initBackgroundColor(new Vec(rand.nextDouble(), rand.nextDouble(), rand.nextDouble()));
 
 		// Add Surfaces to the scene.
 		// (1) A plain that represents the ground floor.
@@ -165,20 +214,19 @@ public class Scenes {
 
 		// (2) Add another plain
 		Shape plainShape2 = new Plain(new Vec(4, 20, 0), new Point(0, -2, 10));
-		Surface plainSurface2 = new Surface(plainShape2, Material.getGlassMaterial(false));
+		Surface plainSurface2 = new Surface(plainShape2, Material.getGlassMaterial(false, rand));
 		finalScene.addSurface(plainSurface2);
 
 		// (3) We will also add some random spheres.
 		int amount = 35;
 		for (int i = 0; i < amount; i++) {
-			Random rand = new Random();
 			int x = rand.nextInt(6);
 			int y = rand.nextInt(2);
 			int z = rand.nextInt(6);
 
-			double radius = (new Random()).nextDouble() * (0.6);
+			double radius = rand.nextDouble() * (0.6);
 			Shape sphere = new Sphere(new Point(x, y, z), radius);
-			Surface sphereSurface = new Surface(sphere, Material.getRandomMaterial());
+			Surface sphereSurface = new Surface(sphere, Material.getRandomMaterial(rand));
 			finalScene.addSurface(sphereSurface);
 		}
 
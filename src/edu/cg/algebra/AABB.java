@@ -0,0 +1,48 @@
+package edu.cg.algebra;
+
+/**
+ * An axis-aligned bounding box. A box with infinite coordinates represents an
+ * unbounded object, such as a plain.
+ */
+public class AABB {
+	public static final AABB INFINITE = new AABB(new Point(Double.NEGATIVE_INFINITY),
+			new Point(Double.POSITIVE_INFINITY));
+
+	private final Point min, max;
+
+	public AABB(Point min, Point max) {
+		this.min = min;
+		this.max = max;
+	}
+
+	public Point min() {
+		return new Point(min.x, min.y, min.z);
+	}
+
+	public Point max() {
+		return new Point(max.x, max.y, max.z);
+	}
+
+	public AABB union(AABB other) {
+		return new AABB(new Point(Math.min(min.x, other.min.x), Math.min(min.y, other.min.y), Math.min(min.z, other.min.z)),
+				new Point(Math.max(max.x, other.max.x), Math.max(max.y, other.max.y), Math.max(max.z, other.max.z)));
+	}
+
+	public Point center() {
+		return new Point((min.x + max.x) / 2.0, (min.y + max.y) / 2.0, (min.z + max.z) / 2.0);
+	}
+
+	public double surfaceArea() {
+		Vec d = max.sub(min);
+		return 2.0 * (d.x * d.y + d.y * d.z + d.z * d.x);
+	}
+
+	public boolean isFinite() {
+		return min.isFinite() & max.isFinite();
+	}
+
+	@Override
+	public String toString() {
+		return "[" + min + " - " + max + "]";
+	}
+}
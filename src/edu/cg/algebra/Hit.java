@@ -8,6 +8,7 @@ public class Hit implements Comparable<Hit> {
 	
 	private boolean isWithin = false;
 	private Surface surface = null;
+	private int surfaceIndex = -1;
 	
 	public Hit(double t, Vec normalToSurface) {
 		this.t = t;
@@ -25,6 +26,16 @@ public class Hit implements Comparable<Hit> {
 	public void setSurface(Surface surface) {
 		this.surface = surface;
 	}
+
+	// The index of the surface in the compiled scene that found the hit, or -1.
+	public int getSurfaceIndex() {
+		return surfaceIndex;
+	}
+
+	public Hit setSurfaceIndex(int surfaceIndex) {
+		this.surfaceIndex = surfaceIndex;
+		return this;
+	}
 	
 	//checks if the intersection was occurred inside the surface (for refraction)
 	public boolean isWithinTheSurface() {
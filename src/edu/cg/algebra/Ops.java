@@ -1,7 +1,5 @@
 package edu.cg.algebra;
 
-import edu.cg.UnimplementedMethodException;
-
 //import ex3.UnimplementedMethodException;
 
 public class Ops {
@@ -17,7 +15,7 @@ public class Ops {
 	}
 
 	public static Vec mult(double a, Vec v) {
-		return mult(new Vec(a), v);
+		return new Vec(a * v.x, a * v.y, a * v.z);
 	}
 
 	public static Vec mult(Vec u, Vec v) {
@@ -25,7 +23,7 @@ public class Ops {
 	}
 
 	public static Point mult(double a, Point p) {
-		return mult(new Point(a), p);
+		return new Point(a * p.x, a * p.y, a * p.z);
 	}
 
 	public static Point mult(Point p1, Point p2) {
@@ -49,11 +47,12 @@ public class Ops {
 	}
 
 	public static double dist(Point p1, Point p2) {
-		return length(sub(p1, p2));
+		return Math.sqrt(distSqr(p1, p2));
 	}
 
 	public static double distSqr(Point p1, Point p2) {
-		return lengthSqr(sub(p1, p2));
+		double dx = p1.x - p2.x, dy = p1.y - p2.y, dz = p1.z - p2.z;
+		return dx * dx + dy * dy + dz * dz;
 	}
 
 	public static Vec normalize(Vec v) {
@@ -61,7 +60,7 @@ public class Ops {
 	}
 
 	public static Vec neg(Vec v) {
-		return mult(-1, v);
+		return negInto(new Vec(), v);
 	}
 
 	public static Vec add(Vec u, Vec v) {
@@ -78,7 +77,7 @@ public class Ops {
 
 	public static Point add(Point p, double t, Vec v) {
 		// returns p + tv;
-		return add(p, mult(t, v));
+		return new Point(p.x + t * v.x, p.y + t * v.y, p.z + t * v.z);
 	}
 
 	public static Vec sub(Point p1, Point p2) {
@@ -94,21 +93,85 @@ public class Ops {
 	}
 
 	public static Vec reflect(Vec u, Vec normal) {
-		return add(u, mult(-2 * dot(u, normal), normal));
+		return reflectInto(new Vec(), u, normal);
+	}
+
+	// MARK: destination-argument operations
+	// The following operations write their result into the given dst vector and
+	// return it, instead of allocating a new vector. dst may be one of the operands.
+	// They give exactly the same values as their allocating versions above, and
+	// are meant for the hot paths of the renderer.
+
+	public static Vec addInto(Vec dst, Vec u, Vec v) {
+		return dst.set(u.x + v.x, u.y + v.y, u.z + v.z);
+	}
+
+	public static Vec multInto(Vec dst, Vec u, Vec v) {
+		return dst.set(u.x * v.x, u.y * v.y, u.z * v.z);
+	}
+
+	public static Vec scaleInto(Vec dst, double a, Vec v) {
+		return dst.set(a * v.x, a * v.y, a * v.z);
+	}
+
+	public static Vec negInto(Vec dst, Vec v) {
+		return dst.set(-v.x, -v.y, -v.z);
+	}
+
+	public static Vec subInto(Vec dst, Point p1, Point p2) {
+		return dst.set(p1.x - p2.x, p1.y - p2.y, p1.z - p2.z);
+	}
+
+	public static Vec normalizeInto(Vec dst, Vec v) {
+		return scaleInto(dst, 1.0 / norm(v), v);
+	}
+
+	/**
+	 * Fused multiply-add: dst += a * v.
+	 */
+	public static Vec fma(Vec dst, double a, Vec v) {
+		return dst.set(dst.x + a * v.x, dst.y + a * v.y, dst.z + a * v.z);
+	}
+
+	/**
+	 * Fused multiply-add: dst += u * v, component-wise.
+	 */
+	public static Vec fma(Vec dst, Vec u, Vec v) {
+		return dst.set(dst.x + u.x * v.x, dst.y + u.y * v.y, dst.z + u.z * v.z);
+	}
+
+	public static Vec reflectInto(Vec dst, Vec u, Vec normal) {
+		double a = -2 * dot(u, normal);
+		return dst.set(u.x + a * normal.x, u.y + a * normal.y, u.z + a * normal.z);
 	}
 
 	/**
 	 * Returns the refraction of the vector u.
 	 * 
-	 * @param u      the light vector direction.
-	 * @param normal The normal of the surface at the intersection point
+	 * @param u      the light vector direction, normalized.
+	 * @param normal The normal of the surface at the intersection point,
+	 *               normalized. It may face either side of the surface.
 	 * @param n1     the refraction index of the first medium
 	 * @param n2     the refraction index of the second medium
-	 * @return
+	 * @return the normalized refracted direction, or null on total internal
+	 *         reflection.
 	 */
 	public static Vec refract(Vec u, Vec normal, double n1, double n2) {
-		// TODO: Bonus implementation.
 		// Snell's law: n1*sin(theta1) = n2*sin(theta2)
-		throw new UnimplementedMethodException("Ops.refract(Vec, Vec, double, double)");
+		double cosI = -dot(u, normal);
+		double side = 1.0;
+		if (cosI < 0) {
+			// The normal faces away from u, so flip it.
+			cosI = -cosI;
+			side = -1.0;
+		}
+
+		double eta = n1 / n2;
+		double k = 1.0 - eta * eta * (1.0 - cosI * cosI); // cos^2(theta2)
+		if (k < 0)
+			return null;
+
+		double a = side * (eta * cosI - Math.sqrt(k));
+		return new Vec(eta * u.x + a * normal.x, eta * u.y + a * normal.y, eta * u.z + a * normal.z);
 	}
 }
@@ -1,16 +1,32 @@
 package edu.cg.algebra;
 
 public class Ray {
-	private final Point source;
-	private final Vec direction;
+	// Assigned once, by a constructor or by ofNormalized.
+	private Point source;
+	private Vec direction;
 	
 	public Ray(Point source, Vec direction) {
 		this.source = source;
 		this.direction = direction.normalize();
 	}
 	
+	private Ray() {
+	}
+	
+	/**
+	 * Creates a ray with a direction that is already normalized, so it is used as is.
+	 */
+	public static Ray ofNormalized(Point source, Vec direction) {
+		Ray ray = new Ray();
+		ray.source = source;
+		ray.direction = direction;
+		return ray;
+	}
+	
 	public Ray(Point p0, Point p1) {
-		this(p0, p1.sub(p0).normalize());
+		this.source = p0;
+		Vec direction = p1.sub(p0);
+		this.direction = Ops.normalizeInto(direction, direction);
 	}
 	
 	public Point source() {
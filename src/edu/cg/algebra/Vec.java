@@ -23,6 +23,21 @@ public class Vec {
 		this(0);
 	}
 	
+	/**
+	 * Overwrites the vector in place.
+	 * @return this vector.
+	 */
+	public Vec set(double x, double y, double z) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		return this;
+	}
+	
+	public Vec set(Vec other) {
+		return set(other.x, other.y, other.z);
+	}
+	
 	public double norm() {
 		return Ops.norm(this);
 	}
@@ -75,6 +90,19 @@ public class Vec {
 		return new Color(clip(x), clip(y), clip(z));
 	}
 	
+	/**
+	 * Packs the vector into a 0xRRGGBB integer, clipping every channel to [0, 1].
+	 * Gives the same value as toColor().getRGB() without the alpha channel,
+	 * and without allocating a Color.
+	 */
+	public int toRGB() {
+		return (channel(x) << 16) | (channel(y) << 8) | channel(z);
+	}
+	
+	private static int channel(double val) {
+		return (int) (clip(val) * 255 + 0.5f);
+	}
+	
 	private static float clip(double val) {
 		return (float)Math.min(1, Math.max(0, val));
 	}
@@ -11,7 +11,6 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 
-import javax.imageio.ImageIO;
 import javax.swing.JButton;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -19,10 +18,13 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.border.EmptyBorder;
 
+import edu.cg.ImageWriteEvent;
+
 @SuppressWarnings("serial")
 public class ImageWindow extends JFrame {
 	private MenuWindow menuWindow;
 	private BufferedImage img;
+	private JPanel panelImage;
 
 	/**
 	 * Create the window.
@@ -49,7 +51,7 @@ public class ImageWindow extends JFrame {
 		});
 		contentPane.add(btnSaveAs, BorderLayout.NORTH);
 		
-		JPanel panelImage = new ImagePanel();
+		panelImage = new ImagePanel();
 		contentPane.add(panelImage, BorderLayout.CENTER);
 		
 		pack();
@@ -66,9 +68,17 @@ public class ImageWindow extends JFrame {
 		}
 	}
 	
+	/**
+	 * Repaints a region of the image that has been updated by a render in progress.
+	 * May be called from any thread.
+	 */
+	public void repaintImage(int x, int y, int width, int height) {
+		panelImage.repaint(x, y, width, height);
+	}
+	
 	private void save(File file) {
 		try {
-			ImageIO.write(img, "png", file);
+			ImageWriteEvent.write(img, "png", file);
 			menuWindow.log("File: " + file.getName() + ".png has been saved.");
 		} catch (IOException e) {
 			menuWindow.log("Failed to save image: " + getTitle()); 
@@ -3,17 +3,24 @@ package edu.cg.menu;
 import java.awt.BorderLayout;
 import java.awt.GridLayout;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 
 import edu.cg.Logger;
 import edu.cg.menu.components.ScenesCreator;
 import edu.cg.menu.components.ScenesPicker;
+import edu.cg.scene.RenderEngine;
+import edu.cg.scene.RenderHandle;
+import edu.cg.scene.RenderListener;
 import edu.cg.scene.Scene;
+import edu.cg.scene.Tile;
 import edu.cg.menu.components.LogField;
 import edu.cg.menu.components.RenderingParametersSelector;
 
@@ -28,6 +35,8 @@ public class MenuWindow extends JFrame implements Logger {
 	private RenderingParametersSelector renderingParametersSelector;
 	private LogField logField;
 	private JButton btnRender;
+	private JButton btnCancel;
+	private RenderHandle renderHandle = null;
 
 	public MenuWindow() {
 		super();
@@ -58,17 +67,23 @@ public class MenuWindow extends JFrame implements Logger {
 				int width = renderingParametersSelector.width();
 				int height = renderingParametersSelector.height();
 				double viewAngle = renderingParametersSelector.viewAngle();
-				BufferedImage img = scene.render(width, height, viewAngle, MenuWindow.this);
-				present(img);
+				render(scene, width, height, viewAngle);
 			} catch (Exception ex) {
-				String msg = "Couldn't render " + scene.getName() + System.lineSeparator() + "Exception message: "
-						+ ex.getMessage();
-				log(msg);
-				JOptionPane.showMessageDialog(MenuWindow.this, msg, "Error", JOptionPane.ERROR_MESSAGE);
+				showRenderError(scene, ex);
 			}
 		});
 
-		renderingParametersSelector.add(btnRender);
+		btnCancel = new JButton("Cancel render");
+		btnCancel.setEnabled(false);
+		btnCancel.addActionListener((e) -> {
+			if (renderHandle != null)
+				renderHandle.cancel();
+		});
+
+		JPanel renderButtons = new JPanel(new GridLayout(1, 0, 5, 0));
+		renderButtons.add(btnRender);
+		renderButtons.add(btnCancel);
+		renderingParametersSelector.add(renderButtons);
 		logField = new LogField();
 
 		JPanel panel1 = new JPanel();
@@ -99,6 +114,62 @@ public class MenuWindow extends JFrame implements Logger {
 		new ImageWindow(img, scene.getName(), this).setVisible(true);
 	}
 
+	/**
+	 * Starts rendering the scene in the background, so the UI stays responsive
+	 * and the image window can present the partial results.
+	 */
+	private void render(Scene scene, int width, int height, double viewAngle) {
+		btnRender.setEnabled(false);
+		btnCancel.setEnabled(true);
+		renderHandle = RenderEngine.getDefault().submit(scene, width, height, viewAngle, this,
+				new LivePreview(scene.getName()));
+		renderHandle.whenComplete((img, ex) -> SwingUtilities.invokeLater(() -> {
+			renderHandle = null;
+			btnRender.setEnabled(true);
+			btnCancel.setEnabled(false);
+			if (ex != null && !(ex instanceof CancellationException))
+				showRenderError(scene, ex);
+		}));
+	}
+
+	private void showRenderError(Scene scene, Throwable ex) {
+		if (ex instanceof CompletionException && ex.getCause() != null)
+			ex = ex.getCause();
+
+		String msg = "Couldn't render " + scene.getName() + System.lineSeparator() + "Exception message: "
+				+ ex.getMessage();
+		log(msg);
+		JOptionPane.showMessageDialog(MenuWindow.this, msg, "Error", JOptionPane.ERROR_MESSAGE);
+	}
+
+	/**
+	 * Presents the image as soon as the render starts, and repaints every tile
+	 * once the render threads complete it.
+	 */
+	private class LivePreview implements RenderListener {
+		private final String title;
+		private volatile ImageWindow window = null;
+
+		public LivePreview(String title) {
+			this.title = title;
+		}
+
+		@Override
+		public void renderStarted(BufferedImage img) {
+			SwingUtilities.invokeLater(() -> {
+				window = new ImageWindow(img, title, MenuWindow.this);
+				window.setVisible(true);
+			});
+		}
+
+		@Override
+		public void tileCompleted(Tile tile, int step) {
+			ImageWindow window = this.window;
+			if (window != null)
+				window.repaintImage(tile.x(), tile.y(), tile.width(), tile.height());
+		}
+	}
+
 	// MARK: Logger
 	@Override
 	public void log(String s) {
@@ -15,6 +15,7 @@ import javax.swing.border.EtchedBorder;
 
 import edu.cg.algebra.Ops;
 import edu.cg.menu.MenuWindow;
+import edu.cg.scene.RenderMode;
 import edu.cg.scene.Scene;
 
 @SuppressWarnings("serial")
@@ -30,6 +31,8 @@ public class RenderingParametersSelector extends JPanel {
 	
 	private Checkbox reflection;
 	private Checkbox refraction;
+	private Checkbox workStealing;
+	private Checkbox progressive;
 	
 	public RenderingParametersSelector() {
 		super();
@@ -84,9 +87,19 @@ public class RenderingParametersSelector extends JPanel {
 		refraction = new Checkbox("Render refractions");
 		refraction.setFont(myFont);
 		
+		workStealing = new Checkbox("  Work stealing");
+		workStealing.setFont(myFont);
+		
+		progressive = new Checkbox("  Progressive");
+		progressive.setFont(myFont);
+		
 		panel2.add(reflection);
 		
 		panel2.add(refraction);
+		
+		panel2.add(workStealing);
+		
+		panel2.add(progressive);
 	}
 	
 	private JFormattedTextField addAndGetTextField(String label, int value, JPanel panel) {
@@ -170,7 +183,9 @@ public class RenderingParametersSelector extends JPanel {
 			scene.initAntiAliasingFactor(3);
 
 		scene.initRenderRefarctions(refraction.getState())
-		.initRenderReflections(reflection.getState());
+		.initRenderReflections(reflection.getState())
+		.initRenderMode(workStealing.getState() ? RenderMode.FORK_JOIN : RenderMode.FIXED_POOL)
+		.initRenderProgressive(progressive.getState());
 		
 		return true;
 	}
@@ -191,5 +206,7 @@ public class RenderingParametersSelector extends JPanel {
 		recursionLevel.setValue(scene.getMaxRecursionLevel());
 		refraction.setState(scene.getRenderRefarctions());
 		reflection.setState(scene.getRenderReflections());
+		workStealing.setState(scene.getRenderMode() == RenderMode.FORK_JOIN);
+		progressive.setState(scene.getRenderProgressive());
 	}
 }
@@ -0,0 +1,93 @@
+package edu.cg.scene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.cg.algebra.Hit;
+import edu.cg.algebra.Ops;
+import edu.cg.algebra.Ray;
+import edu.cg.scene.objects.Surface;
+
+/**
+ * Answers the intersection queries of the tracer. The bounded surfaces of the
+ * scene are indexed by a BVH, and the unbounded ones (such as plains) are
+ * tested one by one.
+ *
+ * Every surface gets an index, which the hits carry: the bounded surfaces come
+ * first, in the order of the BVH, and the unbounded ones follow.
+ */
+class Accelerator {
+	private final BVH bvh;
+	private final Surface[] unbounded;
+	private final Surface[] surfaces; // by index
+
+	Accelerator(List<Surface> surfaces) {
+		List<Surface> bounded = new ArrayList<>();
+		List<Surface> unbounded = new ArrayList<>();
+		for (Surface surface : surfaces)
+			(surface.bounds().isFinite() ? bounded : unbounded).add(surface);
+
+		this.bvh = new BVH(bounded);
+		this.unbounded = unbounded.toArray(new Surface[unbounded.size()]);
+		bounded.addAll(unbounded);
+		this.surfaces = bounded.toArray(new Surface[bounded.size()]);
+	}
+
+	int size() {
+		return surfaces.length;
+	}
+
+	Surface surface(int index) {
+		return surfaces[index];
+	}
+
+	/**
+	 * Returns the nearest intersection of a given ray with the surfaces.
+	 * The unbounded surfaces are tested first, so their nearest distance culls
+	 * the traversal of the BVH. The hit attributes are computed only once, for
+	 * the nearest surface.
+	 * @param ray - given ray
+	 * @param context - the state of the render thread
+	 * @return the nearest hit, or null if there is none.
+	 */
+	Hit findMinIntersection(Ray ray, TraceContext context) {
+		int minSurface = -1;
+		double minT = Double.POSITIVE_INFINITY;
+		for (int i = 0; i < unbounded.length; ++i) {
+			double t = unbounded[i].intersectT(ray, Ops.epsilon, minT);
+			if (t < minT) {
+				minSurface = i;
+				minT = t;
+			}
+		}
+
+		context.intersectionTests(unbounded.length);
+
+		// On a tie the bounded surface wins.
+		Hit hit = bvh.intersect(ray, Math.nextUp(minT), context);
+		if (hit != null)
+			return hit;
+		if (minSurface < 0)
+			return null;
+		return unbounded[minSurface].hitAt(ray, minT).setSurfaceIndex(bvh.size() + minSurface);
+	}
+
+	/**
+	 * Finds a surface that is hit by the ray closer than the given distance.
+	 * No hit attributes are computed, and the search stops at the first blocker.
+	 * @param ray - given ray
+	 * @param maxDistance - hits beyond this distance are ignored
+	 * @param context - the state of the render thread
+	 * @return the blocking surface, or null if the ray is not blocked.
+	 */
+	Surface findOccluder(Ray ray, double maxDistance, TraceContext context) {
+		for (int i = 0; i < unbounded.length; ++i) {
+			if (unbounded[i].intersects(ray, maxDistance)) {
+				context.intersectionTests(i + 1);
+				return unbounded[i];
+			}
+		}
+		context.intersectionTests(unbounded.length);
+		return bvh.findOccluder(ray, maxDistance, context);
+	}
+}
@@ -0,0 +1,383 @@
+package edu.cg.scene;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.cg.algebra.AABB;
+import edu.cg.algebra.Hit;
+import edu.cg.algebra.Ops;
+import edu.cg.algebra.Point;
+import edu.cg.algebra.Ray;
+import edu.cg.algebra.Vec;
+import edu.cg.scene.objects.Surface;
+
+/**
+ * A bounding volume hierarchy over the bounded surfaces of a scene.
+ *
+ * The tree is built top-down with the surface area heuristic (SAH), evaluated
+ * over a fixed number of centroid bins per axis. The nodes are kept in flat
+ * arrays in depth-first order, so the left child of an interior node is the
+ * node that follows it.
+ */
+class BVH {
+	private static final int BINS = 16;
+	private static final int MAX_LEAF_SIZE = 4;
+	private static final int MAX_DEPTH = 64;
+	// The size of a traversal stack that is large enough for any hierarchy.
+	static final int STACK_SIZE = MAX_DEPTH + 2;
+	// The cost of traversing a node, relative to Shape.intersectionCost().
+	private static final double TRAVERSAL_COST = 1.0;
+
+	private final Surface[] surfaces;
+	private final double[] surfaceBounds; // min x, y, z, max x, y, z of every surface
+	private final double[] centroids;
+	private final double[] costs; // the estimated intersection cost of every surface
+	private final int[] order; // the surfaces of a leaf are consecutive in this array
+
+	private double[] nodeBounds;
+	private int[] nodeIndex; // a leaf's first index in order, an interior node's right child
+	private int[] nodeCount; // the number of surfaces of a leaf, 0 for interior nodes
+	private int nodes = 0;
+
+	/**
+	 * Builds the hierarchy.
+	 * @param boundedSurfaces - surfaces whose bounds are finite
+	 */
+	BVH(List<Surface> boundedSurfaces) {
+		int n = boundedSurfaces.size();
+		surfaces = boundedSurfaces.toArray(new Surface[n]);
+		surfaceBounds = new double[6 * n];
+		centroids = new double[3 * n];
+		costs = new double[n];
+		order = new int[n];
+
+		for (int i = 0; i < n; ++i) {
+			AABB bounds = surfaces[i].bounds();
+			Point min = bounds.min();
+			Point max = bounds.max();
+			surfaceBounds[6 * i] = min.x;
+			surfaceBounds[6 * i + 1] = min.y;
+			surfaceBounds[6 * i + 2] = min.z;
+			surfaceBounds[6 * i + 3] = max.x;
+			surfaceBounds[6 * i + 4] = max.y;
+			surfaceBounds[6 * i + 5] = max.z;
+			Point centroid = surfaces[i].centroid();
+			centroids[3 * i] = centroid.x;
+			centroids[3 * i + 1] = centroid.y;
+			centroids[3 * i + 2] = centroid.z;
+			costs[i] = surfaces[i].intersectionCost();
+			order[i] = i;
+		}
+
+		int capacity = Math.max(1, 2 * n);
+		nodeBounds = new double[6 * capacity];
+		nodeIndex = new int[capacity];
+		nodeCount = new int[capacity];
+		if (n > 0)
+			build(0, n, 0);
+	}
+
+	int size() {
+		return surfaces.length;
+	}
+
+	// MARK: construction
+
+	private int build(int start, int end, int depth) {
+		int node = nodes++;
+		double[] bounds = new double[6];
+		double[] centroidBounds = new double[6];
+		empty(bounds);
+		empty(centroidBounds);
+		for (int i = start; i < end; ++i) {
+			int s = order[i];
+			for (int axis = 0; axis < 3; ++axis) {
+				bounds[axis] = Math.min(bounds[axis], surfaceBounds[6 * s + axis]);
+				bounds[3 + axis] = Math.max(bounds[3 + axis], surfaceBounds[6 * s + 3 + axis]);
+				centroidBounds[axis] = Math.min(centroidBounds[axis], centroids[3 * s + axis]);
+				centroidBounds[3 + axis] = Math.max(centroidBounds[3 + axis], centroids[3 * s + axis]);
+			}
+		}
+		System.arraycopy(bounds, 0, nodeBounds, 6 * node, 6);
+
+		int count = end - start;
+		int mid = count <= 1 || depth >= MAX_DEPTH ? -1 : split(start, end, bounds, centroidBounds);
+		if (mid < 0) {
+			nodeIndex[node] = start;
+			nodeCount[node] = count;
+			return node;
+		}
+
+		nodeCount[node] = 0;
+		build(start, mid, depth + 1);
+		nodeIndex[node] = build(mid, end, depth + 1);
+		return node;
+	}
+
+	/**
+	 * Chooses the cheapest binned SAH split of the given range and partitions the
+	 * range accordingly. The cost of each half is its area times the total
+	 * intersection cost of its surfaces.
+	 * @return the index of the first surface of the right half, or -1 if a leaf is cheaper.
+	 */
+	private int split(int start, int end, double[] bounds, double[] centroidBounds) {
+		int count = end - start;
+		double totalCost = 0;
+		for (int i = start; i < end; ++i)
+			totalCost += costs[order[i]];
+		double bestCost = Double.POSITIVE_INFINITY;
+		int bestAxis = -1, bestBin = -1;
+
+		int[] binCounts = new int[BINS];
+		double[] binCosts = new double[BINS];
+		double[] binBounds = new double[6 * BINS];
+		double[] rightArea = new double[BINS];
+		double[] acc = new double[6];
+
+		for (int axis = 0; axis < 3; ++axis) {
+			double lo = centroidBounds[axis], hi = centroidBounds[3 + axis];
+			if (hi - lo <= 0)
+				continue;
+
+			Arrays.fill(binCounts, 0);
+			Arrays.fill(binCosts, 0);
+			for (int b = 0; b < BINS; ++b)
+				empty(binBounds, 6 * b);
+			for (int i = start; i < end; ++i) {
+				int s = order[i];
+				int b = bin(centroids[3 * s + axis], lo, hi);
+				++binCounts[b];
+				binCosts[b] += costs[s];
+				grow(binBounds, 6 * b, surfaceBounds, 6 * s);
+			}
+
+			// Sweep from the right to get the area of every right half, then from the left.
+			empty(acc);
+			for (int b = BINS - 1; b > 0; --b) {
+				grow(acc, 0, binBounds, 6 * b);
+				rightArea[b] = area(acc);
+			}
+
+			empty(acc);
+			int leftCount = 0;
+			double leftCost = 0;
+			for (int b = 0; b < BINS - 1; ++b) {
+				grow(acc, 0, binBounds, 6 * b);
+				leftCount += binCounts[b];
+				leftCost += binCosts[b];
+				if (leftCount == 0 || leftCount == count)
+					continue;
+				double cost = leftCost * area(acc) + (totalCost - leftCost) * rightArea[b + 1];
+				if (cost < bestCost) {
+					bestCost = cost;
+					bestAxis = axis;
+					bestBin = b;
+				}
+			}
+		}
+
+		if (bestAxis < 0)
+			return count > MAX_LEAF_SIZE ? start + count / 2 : -1; // all the centroids coincide
+
+		double nodeArea = area(bounds);
+		double splitCost = TRAVERSAL_COST + bestCost / nodeArea;
+		if (nodeArea > 0 && splitCost >= totalCost && count <= MAX_LEAF_SIZE)
+			return -1;
+
+		// Partition the range by the chosen bin.
+		double lo = centroidBounds[bestAxis], hi = centroidBounds[3 + bestAxis];
+		int i = start, j = end - 1;
+		while (i <= j) {
+			if (bin(centroids[3 * order[i] + bestAxis], lo, hi) <= bestBin) {
+				++i;
+			} else {
+				int tmp = order[i];
+				order[i] = order[j];
+				order[j--] = tmp;
+			}
+		}
+		return i;
+	}
+
+	private static int bin(double centroid, double lo, double hi) {
+		int b = (int) (BINS * (centroid - lo) / (hi - lo));
+		return Math.min(BINS - 1, Math.max(0, b));
+	}
+
+	private static void empty(double[] box) {
+		empty(box, 0);
+	}
+
+	private static void empty(double[] box, int offset) {
+		for (int axis = 0; axis < 3; ++axis) {
+			box[offset + axis] = Double.POSITIVE_INFINITY;
+			box[offset + 3 + axis] = Double.NEGATIVE_INFINITY;
+		}
+	}
+
+	private static void grow(double[] box, int offset, double[] other, int otherOffset) {
+		for (int axis = 0; axis < 3; ++axis) {
+			box[offset + axis] = Math.min(box[offset + axis], other[otherOffset + axis]);
+			box[offset + 3 + axis] = Math.max(box[offset + 3 + axis], other[otherOffset + 3 + axis]);
+		}
+	}
+
+	private static double area(double[] box) {
+		double dx = box[3] - box[0], dy = box[4] - box[1], dz = box[5] - box[2];
+		return 2.0 * (dx * dy + dy * dz + dz * dx);
+	}
+
+	// MARK: traversal
+
+	/**
+	 * Returns the nearest intersection of the ray with the surfaces of the
+	 * hierarchy that is closer than tMax. The children of every node are visited
+	 * front-to-back, and nodes that start beyond the nearest hit found so far are
+	 * skipped, both when they are pushed and when they are popped. Only the
+	 * distances of the candidates are computed; the hit attributes are computed
+	 * for the nearest one alone. The hit carries the index of its surface in the
+	 * list the hierarchy was built from.
+	 * @param ray - given ray
+	 * @param tMax - hits at this distance or beyond are ignored
+	 * @param context - the state of the render thread, which owns the traversal stack
+	 * @return the nearest hit, or null if the ray misses all the surfaces.
+	 */
+	Hit intersect(Ray ray, double tMax, TraceContext context) {
+		if (nodes == 0)
+			return null;
+
+		Point o = ray.source();
+		Vec d = ray.direction();
+		double invX = inverse(d.x), invY = inverse(d.y), invZ = inverse(d.z);
+
+		int minSurface = -1;
+		int[] stack = context.traversalStack();
+		// The distance at which the ray enters every pushed node.
+		double[] entries = context.traversalEntries();
+		int top = 0;
+		int tests = 0;
+		double tRoot = enter(0, o, invX, invY, invZ, tMax);
+		if (tRoot == Double.POSITIVE_INFINITY)
+			return null;
+		entries[top] = tRoot;
+		stack[top++] = 0;
+
+		while (top > 0) {
+			int node = stack[--top];
+			// The nearest hit may have moved closer since the node was pushed.
+			if (entries[top] > tMax)
+				continue;
+
+			if (nodeCount[node] > 0) {
+				tests += nodeCount[node];
+				for (int i = nodeIndex[node]; i < nodeIndex[node] + nodeCount[node]; ++i) {
+					double t = surfaces[order[i]].intersectT(ray, Ops.epsilon, tMax);
+					if (t < tMax) {
+						minSurface = order[i];
+						tMax = t;
+					}
+				}
+				continue;
+			}
+
+			int left = node + 1, right = nodeIndex[node];
+			double tLeft = enter(left, o, invX, invY, invZ, tMax);
+			double tRight = enter(right, o, invX, invY, invZ, tMax);
+			// Push the farther child first, so the nearer one is visited next.
+			if (tLeft <= tRight) {
+				if (tRight != Double.POSITIVE_INFINITY) {
+					entries[top] = tRight;
+					stack[top++] = right;
+				}
+				if (tLeft != Double.POSITIVE_INFINITY) {
+					entries[top] = tLeft;
+					stack[top++] = left;
+				}
+			} else {
+				if (tLeft != Double.POSITIVE_INFINITY) {
+					entries[top] = tLeft;
+					stack[top++] = left;
+				}
+				entries[top] = tRight;
+				stack[top++] = right;
+			}
+		}
+		context.intersectionTests(tests);
+		return minSurface < 0 ? null : surfaces[minSurface].hitAt(ray, tMax).setSurfaceIndex(minSurface);
+	}
+
+	/**
+	 * Finds a surface of the hierarchy that is hit by the ray closer than the
+	 * given distance. Only the distances are computed, nodes beyond maxDistance
+	 * are skipped, and the traversal stops at the first blocking surface.
+	 * @param ray - given ray
+	 * @param maxDistance - hits beyond this distance are ignored
+	 * @param context - the state of the render thread, which owns the traversal stack
+	 * @return the blocking surface, or null if there is none.
+	 */
+	Surface findOccluder(Ray ray, double maxDistance, TraceContext context) {
+		if (nodes == 0)
+			return null;
+
+		Point o = ray.source();
+		Vec d = ray.direction();
+		double invX = inverse(d.x), invY = inverse(d.y), invZ = inverse(d.z);
+
+		int[] stack = context.traversalStack();
+		int top = 0;
+		int tests = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (enter(node, o, invX, invY, invZ, maxDistance) == Double.POSITIVE_INFINITY)
+				continue;
+
+			if (nodeCount[node] > 0) {
+				for (int i = nodeIndex[node]; i < nodeIndex[node] + nodeCount[node]; ++i) {
+					++tests;
+					if (surfaces[order[i]].intersects(ray, maxDistance)) {
+						context.intersectionTests(tests);
+						return surfaces[order[i]];
+					}
+				}
+				continue;
+			}
+
+			stack[top++] = nodeIndex[node];
+			stack[top++] = node + 1;
+		}
+		context.intersectionTests(tests);
+		return null;
+	}
+
+	/**
+	 * Returns the inverse of a direction component. Zero components are replaced by
+	 * the smallest normal double, so the slab test never multiplies 0 by infinity.
+	 */
+	private static double inverse(double component) {
+		return 1.0 / (component == 0 ? Double.MIN_NORMAL : component);
+	}
+
+	/**
+	 * Intersects the ray with the bounds of a node using the slab method.
+	 * @return the distance at which the ray enters the box, or positive infinity
+	 *         if it misses the box or enters it beyond tMax.
+	 */
+	private double enter(int node, Point o, double invX, double invY, double invZ, double tMax) {
+		int b = 6 * node;
+		double t0 = (nodeBounds[b] - o.x) * invX, t1 = (nodeBounds[b + 3] - o.x) * invX;
+		double tNear = Math.min(t0, t1), tFar = Math.max(t0, t1);
+
+		t0 = (nodeBounds[b + 1] - o.y) * invY;
+		t1 = (nodeBounds[b + 4] - o.y) * invY;
+		tNear = Math.max(tNear, Math.min(t0, t1));
+		tFar = Math.min(tFar, Math.max(t0, t1));
+
+		t0 = (nodeBounds[b + 2] - o.z) * invZ;
+		t1 = (nodeBounds[b + 5] - o.z) * invZ;
+		tNear = Math.max(tNear, Math.min(t0, t1));
+		tFar = Math.min(tFar, Math.max(t0, t1));
+
+		return tNear <= tFar && tFar >= 0 && tNear <= tMax ? tNear : Double.POSITIVE_INFINITY;
+	}
+}
@@ -0,0 +1,102 @@
+package edu.cg.scene;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.cg.algebra.Hit;
+import edu.cg.algebra.Vec;
+import edu.cg.scene.lightSources.Light;
+import edu.cg.scene.lightSources.LightTable;
+import edu.cg.scene.objects.Surface;
+
+/**
+ * The render-ready form of a scene, compiled once at the start of a render.
+ * The tracer reads only this form: the surfaces are indexed by the
+ * accelerator, the lights are flattened into a light table, and the
+ * materials are interned into a single table of doubles, so shading a hit
+ * reads its coefficients from one array instead of following the surface to
+ * its material and to every coefficient vector.
+ *
+ * The compiled scene is a snapshot and is never modified. Changes to the
+ * scene are picked up by the next compilation.
+ */
+final class CompiledScene {
+	// The layout of a material in the material table.
+	static final int KA = 0;
+	static final int KD = 3;
+	static final int KS = 6;
+	static final int SHININESS = 9;
+	static final int REFLECTION_INTENSITY = 10;
+	static final int REFRACTION_INTENSITY = 11;
+	static final int REFRACTION_INDEX = 12;
+	static final int TRANSPARENT = 13; // 1 if the material is transparent, 0 otherwise
+	private static final int STRIDE = 14;
+
+	final Accelerator accelerator;
+	final LightTable lights;
+	final double[] materials; // the distinct materials, STRIDE values each
+	private final int[] surfaceMaterials; // the offset of every surface's material, by surface index
+	final Vec ambient;
+	final Vec backgroundColor;
+
+	CompiledScene(List<Surface> surfaces, List<Light> lights, Vec ambient, Vec backgroundColor) {
+		this.accelerator = new Accelerator(surfaces);
+		this.lights = LightTable.compile(lights);
+		this.ambient = new Vec(ambient.x, ambient.y, ambient.z);
+		this.backgroundColor = new Vec(backgroundColor.x, backgroundColor.y, backgroundColor.z);
+
+		// Surfaces with equal coefficients share their row of the table.
+		Map<List<Double>, Integer> offsets = new HashMap<>();
+		double[] table = new double[STRIDE * accelerator.size()];
+		surfaceMaterials = new int[accelerator.size()];
+		for (int i = 0; i < accelerator.size(); ++i) {
+			double[] material = compile(accelerator.surface(i));
+			List<Double> key = new ArrayList<>(STRIDE);
+			for (double value : material)
+				key.add(value);
+
+			Integer offset = offsets.get(key);
+			if (offset == null) {
+				offset = STRIDE * offsets.size();
+				offsets.put(key, offset);
+				System.arraycopy(material, 0, table, offset, STRIDE);
+			}
+			surfaceMaterials[i] = offset;
+		}
+		this.materials = Arrays.copyOf(table, STRIDE * offsets.size());
+	}
+
+	private static double[] compile(Surface surface) {
+		double[] material = new double[STRIDE];
+		setVec(material, KA, surface.Ka());
+		setVec(material, KD, surface.Kd());
+		setVec(material, KS, surface.Ks());
+		material[SHININESS] = surface.shininess();
+		material[REFLECTION_INTENSITY] = surface.reflectionIntensity();
+		material[REFRACTION_INTENSITY] = surface.refractionIntensity();
+		material[REFRACTION_INDEX] = surface.refractionIndex();
+		material[TRANSPARENT] = surface.isTransparent() ? 1 : 0;
+		return material;
+	}
+
+	private static void setVec(double[] material, int offset, Vec v) {
+		material[offset] = v.x;
+		material[offset + 1] = v.y;
+		material[offset + 2] = v.z;
+	}
+
+	/**
+	 * Returns the offset of the material of the hit surface in the material table.
+	 * @param hit - a hit that was found by the accelerator of this scene
+	 */
+	int material(Hit hit) {
+		return surfaceMaterials[hit.getSurfaceIndex()];
+	}
+
+	int materialCount() {
+		return materials.length / STRIDE;
+	}
+}
@@ -0,0 +1,86 @@
+package edu.cg.scene;
+
+import java.util.Arrays;
+
+import edu.cg.algebra.Vec;
+import edu.cg.scene.camera.PinholeCamera;
+
+/**
+ * The samples of the SHARED_CORNERS pattern for one row of pixels of a tile.
+ * Every pixel is split into N X N strata and sampled at the (N+1)^2 corners
+ * of its strata. A corner is traced only once, the first time a pixel needs
+ * it, and is then shared with the neighbouring pixels of the row. The last
+ * row of corners is kept for the next row of pixels.
+ */
+class CornerSamples {
+	private final Scene scene;
+	private final PinholeCamera camera;
+	private final int n; // strata per axis
+	private final int tileX;
+	private final int columns; // corners per row
+	private final double[] colors; // the clipped colors of the corners, 3 per corner, (n+1) rows
+	private final boolean[] traced;
+	private int y = -1; // the pixel row of the current corners
+
+	CornerSamples(Scene scene, PinholeCamera camera, int samplesPerAxis, Tile tile) {
+		this.scene = scene;
+		this.camera = camera;
+		this.n = samplesPerAxis;
+		this.tileX = tile.x();
+		this.columns = n * tile.width() + 1;
+		this.colors = new double[3 * columns * (n + 1)];
+		this.traced = new boolean[columns * (n + 1)];
+	}
+
+	/**
+	 * Moves to the given row of pixels. If it follows the current row, the
+	 * corners they share are kept.
+	 */
+	void moveTo(int y) {
+		boolean next = y == this.y + 1;
+		if (next) {
+			System.arraycopy(traced, n * columns, traced, 0, columns);
+			System.arraycopy(colors, 3 * n * columns, colors, 0, 3 * columns);
+		}
+		Arrays.fill(traced, next ? columns : 0, traced.length, false);
+		this.y = y;
+	}
+
+	/**
+	 * Calculates the color of a pixel of the current row, as the average of
+	 * its corners. The corners on the edges of the pixel are shared with its
+	 * neighbours, so they are weighted by one half (and one quarter at the
+	 * pixel's own corners), so that every stratum weighs the same.
+	 * @param dst - the vector to write the color into
+	 * @param x - the pixel index in the x direction
+	 * @param context - the state of the calling render thread
+	 * @return dst
+	 */
+	Vec pixelColor(Vec dst, int x, TraceContext context) {
+		double r = 0, g = 0, b = 0;
+		for (int j = 0; j <= n; ++j) {
+			for (int i = 0; i <= n; ++i) {
+				int corner = j * columns + (x - tileX) * n + i;
+				if (!traced[corner]) {
+					Vec color = scene.calcColor(camera, camera.transform(x - 0.5 + (double) i / n, y - 0.5 + (double) j / n),
+							context);
+					colors[3 * corner] = clip(color.x);
+					colors[3 * corner + 1] = clip(color.y);
+					colors[3 * corner + 2] = clip(color.z);
+					traced[corner] = true;
+				}
+
+				double weight = (i == 0 || i == n ? 0.5 : 1) * (j == 0 || j == n ? 0.5 : 1);
+				r += weight * colors[3 * corner];
+				g += weight * colors[3 * corner + 1];
+				b += weight * colors[3 * corner + 2];
+			}
+		}
+		double strata = n * n;
+		return dst.set(r / strata, g / strata, b / strata);
+	}
+
+	private static double clip(double value) {
+		return Math.min(1, Math.max(0, value));
+	}
+}
@@ -0,0 +1,48 @@
+package edu.cg.scene;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A fork/join task that renders a rectangular region of the image. Regions
+ * larger than the threshold are halved along their longer edge, and the halves
+ * are forked so that idle workers can steal them.
+ */
+class RegionAction extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	private final RenderJob job;
+	private final Tile region;
+	private final int threshold;
+	private final int step;
+
+	RegionAction(RenderJob job, Tile region, int threshold, int step) {
+		this.job = job;
+		this.region = region;
+		this.threshold = threshold;
+		this.step = step;
+	}
+
+	@Override
+	protected void compute() {
+		if (job.isCancelled())
+			return;
+
+		if (region.size() <= threshold || (region.width() == 1 && region.height() == 1)) {
+			job.renderTile(region, step);
+			return;
+		}
+
+		Tile first, second;
+		if (region.width() >= region.height()) {
+			int half = region.width() / 2;
+			first = new Tile(region.x(), region.y(), half, region.height());
+			second = new Tile(region.x() + half, region.y(), region.width() - half, region.height());
+		} else {
+			int half = region.height() / 2;
+			first = new Tile(region.x(), region.y(), region.width(), half);
+			second = new Tile(region.x(), region.y() + half, region.width(), region.height() - half);
+		}
+
+		invokeAll(new RegionAction(job, first, threshold, step), new RegionAction(job, second, threshold, step));
+	}
+}
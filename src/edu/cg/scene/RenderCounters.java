@@ -0,0 +1,46 @@
+package edu.cg.scene;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of a single render. The workers count into their own trace
+ * context and add it here once per tile, so the hot path never touches a
+ * shared counter.
+ */
+class RenderCounters {
+	final LongAdder primaryRays = new LongAdder();
+	final LongAdder shadowRays = new LongAdder();
+	final LongAdder reflectionRays = new LongAdder();
+	final LongAdder refractionRays = new LongAdder();
+	final LongAdder intersectionTests = new LongAdder();
+	final LongAdder shadowCacheHits = new LongAdder();
+	final LongAdder shadowCacheMisses = new LongAdder();
+	final LongAdder antiAliasedPixels = new LongAdder();
+
+	final LongAdder tiles = new LongAdder();
+	final LongAdder traceNanos = new LongAdder();
+	final LongAdder writeNanos = new LongAdder();
+	final LongAccumulator maxTileNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Adds the counters of a completed tile.
+	 * @param context - the trace context of the tile
+	 * @param tileNanos - the time it took to render the tile
+	 * @param writeNanos - the part of tileNanos that was spent writing into the image
+	 */
+	void addTile(TraceContext context, long tileNanos, long writeNanos) {
+		primaryRays.add(context.primaryRays());
+		shadowRays.add(context.shadowRays());
+		reflectionRays.add(context.reflectionRays());
+		refractionRays.add(context.refractionRays());
+		intersectionTests.add(context.intersectionTests());
+		shadowCacheHits.add(context.shadowCacheHits());
+		shadowCacheMisses.add(context.shadowCacheMisses());
+
+		tiles.increment();
+		traceNanos.add(tileNanos - writeNanos);
+		this.writeNanos.add(writeNanos);
+		maxTileNanos.accumulate(tileNanos);
+	}
+}
@@ -0,0 +1,324 @@
+package edu.cg.scene;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+import edu.cg.Logger;
+
+/**
+ * A long-lived renderer that owns the render threads. A single engine can
+ * render many scenes, concurrently and re-entrantly, without paying the
+ * thread start-up cost on every render.
+ */
+public class RenderEngine implements AutoCloseable {
+	// The engine whose worker is running on the current thread, if any.
+	private static final ThreadLocal<RenderEngine> currentEngine = new ThreadLocal<>();
+
+	private final int nThreads;
+	private final String threadNamePrefix;
+	private final ExecutorService executor;
+	private final ForkJoinPool forkJoinPool;
+	private final ExecutorService coordinator; // drives the passes of the background renders
+
+	/**
+	 * Creates an engine with one thread per available processor (and at least two).
+	 */
+	public RenderEngine() {
+		this(defaultThreadCount(), "render");
+	}
+
+	/**
+	 * Creates an engine.
+	 * @param nThreads - the number of render threads of each pool
+	 * @param threadNamePrefix - the prefix of the names of the render threads
+	 */
+	public RenderEngine(int nThreads, String threadNamePrefix) {
+		if (nThreads <= 0)
+			throw new IllegalArgumentException("Number of threads must be positive");
+
+		this.nThreads = nThreads;
+		this.threadNamePrefix = threadNamePrefix;
+
+		AtomicInteger poolThreads = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(() -> {
+				currentEngine.set(this);
+				runnable.run();
+			}, threadNamePrefix + "-" + poolThreads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		this.executor = Executors.newFixedThreadPool(nThreads, threadFactory);
+
+		AtomicInteger forkJoinThreads = new AtomicInteger();
+		this.forkJoinPool = new ForkJoinPool(nThreads, pool -> {
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+			thread.setName(threadNamePrefix + "-fj-" + forkJoinThreads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}, null, false);
+
+		AtomicInteger coordinatorThreads = new AtomicInteger();
+		this.coordinator = Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, threadNamePrefix + "-coordinator-" + coordinatorThreads.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public static int defaultThreadCount() {
+		int nThreads = Runtime.getRuntime().availableProcessors();
+		return nThreads < 2 ? 2 : nThreads;
+	}
+
+	private static class DefaultHolder {
+		public static final RenderEngine engine = new RenderEngine();
+	}
+
+	/**
+	 * Returns the engine shared by all the renders that didn't specify one.
+	 */
+	public static RenderEngine getDefault() {
+		return DefaultHolder.engine;
+	}
+
+	public int getThreadCount() {
+		return nThreads;
+	}
+
+	public String getThreadNamePrefix() {
+		return threadNamePrefix;
+	}
+
+	/**
+	 * Renders the given scene using the scene's render mode and tile size.
+	 * @param scene - the scene to render
+	 * @param imgWidth - the number of pixels in the x direction
+	 * @param imgHeight - the number of pixels in the y direction
+	 * @param viewAngle - the view angle
+	 * @param logger - the logger of the render progress
+	 * @return the rendered image.
+	 */
+	public BufferedImage render(Scene scene, int imgWidth, int imgHeight, double viewAngle, Logger logger)
+			throws InterruptedException, ExecutionException, IllegalArgumentException {
+		return render(scene, imgWidth, imgHeight, viewAngle, logger, RenderListener.NONE);
+	}
+
+	/**
+	 * Renders the given scene using the scene's render mode and tile size, and
+	 * reports every completed tile to the listener. If the scene renders
+	 * progressively, a coarse pass is traced first and refined on every
+	 * following pass.
+	 * @param scene - the scene to render
+	 * @param imgWidth - the number of pixels in the x direction
+	 * @param imgHeight - the number of pixels in the y direction
+	 * @param viewAngle - the view angle
+	 * @param logger - the logger of the render progress
+	 * @param listener - the listener of the partial results
+	 * @return the rendered image.
+	 */
+	public BufferedImage render(Scene scene, int imgWidth, int imgHeight, double viewAngle, Logger logger,
+			RenderListener listener) throws InterruptedException, ExecutionException, IllegalArgumentException {
+		return render(new RenderJob(scene, imgWidth, imgHeight, viewAngle, logger, listener, 0), logger);
+	}
+
+	/**
+	 * Renders the given scene like {@link #render(Scene, int, int, double, Logger, RenderListener)},
+	 * and returns the statistics and the tile costs of the render together with the image.
+	 * @return the rendered image, the statistics and the tile costs of its render.
+	 */
+	public RenderResult renderWithStats(Scene scene, int imgWidth, int imgHeight, double viewAngle, Logger logger,
+			RenderListener listener) throws InterruptedException, ExecutionException, IllegalArgumentException {
+		RenderJob job = new RenderJob(scene, imgWidth, imgHeight, viewAngle, logger, listener, 0);
+		BufferedImage img = render(job, logger);
+		return new RenderResult(img, job.stats(), job.tileCosts());
+	}
+
+	/**
+	 * Starts rendering the given scene in the background.
+	 * @see #render(Scene, int, int, double, Logger, RenderListener)
+	 * @return a handle that reports the progress of the render and allows to cancel it.
+	 */
+	public RenderHandle submit(Scene scene, int imgWidth, int imgHeight, double viewAngle, Logger logger,
+			RenderListener listener) {
+		return submit(scene, imgWidth, imgHeight, viewAngle, logger, listener, null);
+	}
+
+	/**
+	 * Starts rendering the given scene in the background, within a time budget.
+	 * Whenever the render is projected to exceed the budget, the recursion level
+	 * of the remaining tiles is lowered in proportion to the overshoot, and
+	 * before the anti aliasing pass, its samples per pixel are lowered to what
+	 * the rest of the budget affords.
+	 * @see #render(Scene, int, int, double, Logger, RenderListener)
+	 * @param budget - the time the render may take, measured from this call, or
+	 *               null if it may take as long as it needs
+	 * @return a handle that reports the progress of the render and allows to cancel it.
+	 */
+	public RenderHandle submit(Scene scene, int imgWidth, int imgHeight, double viewAngle, Logger logger,
+			RenderListener listener, Duration budget) {
+		long budgetNanos = budget == null ? 0 : Math.max(1, budget.toNanos());
+		RenderJob job = new RenderJob(scene, imgWidth, imgHeight, viewAngle, logger, listener, budgetNanos);
+		// The result is completed by the coordinator alone, once the render has
+		// returned, so a cancelled render is reported only after its tiles stopped.
+		CompletableFuture<BufferedImage> result = new CompletableFuture<>();
+		coordinator.execute(() -> {
+			try {
+				result.complete(render(job, logger));
+			} catch (CancellationException e) {
+				result.cancel(false);
+			} catch (ExecutionException e) {
+				result.completeExceptionally(e.getCause());
+			} catch (InterruptedException e) {
+				result.completeExceptionally(e);
+			} catch (RuntimeException | Error e) {
+				result.completeExceptionally(e);
+			}
+		});
+		return new RenderHandle(job, result);
+	}
+
+	/**
+	 * Renders the job's scene while a {@link RenderMXBean} of the job is
+	 * registered, within a {@link RenderEvent}.
+	 */
+	private BufferedImage render(RenderJob job, Logger logger) throws InterruptedException, ExecutionException {
+		ObjectName monitor = RenderMonitor.register(job);
+		RenderEvent event = new RenderEvent();
+		event.begin();
+		boolean completed = false;
+		try {
+			BufferedImage img = renderPasses(job, logger);
+			completed = true;
+			return img;
+		} finally {
+			job.finish();
+			RenderMonitor.unregister(monitor);
+			event.end();
+			if (event.shouldCommit())
+				commit(event, job, completed);
+		}
+	}
+
+	private static void commit(RenderEvent event, RenderJob job, boolean completed) {
+		Scene scene = job.scene();
+		RenderStats stats = job.stats();
+		event.sceneName = scene.getName();
+		event.width = stats.width();
+		event.height = stats.height();
+		event.antiAliasingFactor = scene.getFactor();
+		event.maxRecursionLevel = scene.getMaxRecursionLevel();
+		event.forkJoin = scene.getRenderMode() == RenderMode.FORK_JOIN;
+		event.setupNanos = stats.setupNanos();
+		event.primaryRays = stats.primaryRays();
+		event.shadowRays = stats.shadowRays();
+		event.reflectionRays = stats.reflectionRays();
+		event.refractionRays = stats.refractionRays();
+		event.intersectionTests = stats.intersectionTests();
+		event.completed = completed;
+		event.commit();
+	}
+
+	private BufferedImage renderPasses(RenderJob job, Logger logger) throws InterruptedException, ExecutionException {
+		Scene scene = job.scene();
+		BufferedImage img = job.image();
+		boolean forkJoin = scene.getRenderMode() == RenderMode.FORK_JOIN;
+
+		logger.log("Using " + nThreads + (forkJoin ? " fork/join" : "") + " threads to render " + scene.getName());
+		logger.log("Starting to shoot " + (long) img.getWidth() * img.getHeight() + " primary rays over "
+				+ scene.getName());
+		job.listener().renderStarted(img);
+
+		for (int step = job.coarsestStep(); step >= 1; step /= 2) {
+			renderPass(job, step, forkJoin, logger);
+			if (step > 1)
+				logger.log("Completed the " + step + "x" + step + " pass of " + scene.getName());
+		}
+
+		if (job.antiAliases() && job.beginRefinement()) {
+			renderPass(job, RenderJob.REFINEMENT_STEP, forkJoin, logger);
+			logger.log("Anti aliased the edges of " + scene.getName() + " with " + job.samplesPerAxis() + "x"
+					+ job.samplesPerAxis() + " samples per pixel");
+		}
+
+		logger.log("Ray tracing of " + scene.getName() + " has been completed.");
+		job.finish();
+		logger.log(job.stats().toString());
+		return img;
+	}
+
+	private void renderPass(RenderJob job, int step, boolean forkJoin, Logger logger)
+			throws InterruptedException, ExecutionException {
+		if (forkJoin)
+			renderForkJoin(job, step);
+		else
+			renderFixedPool(job, step);
+
+		if (job.isCancelled()) {
+			logger.log("Ray tracing of " + job.scene().getName() + " has been cancelled.");
+			throw new CancellationException("The render of " + job.scene().getName() + " has been cancelled");
+		}
+
+		job.listener().passCompleted(step);
+	}
+
+	private void renderFixedPool(RenderJob job, int step) throws InterruptedException, ExecutionException {
+		BufferedImage img = job.image();
+		List<Tile> tiles = Tile.split(img.getWidth(), img.getHeight(), job.scene().getTileSize());
+
+		if (currentEngine.get() == this) {
+			// A render that was started from one of our own workers can't wait for
+			// the (possibly busy) pool, so it is traced on the calling thread.
+			for (Tile tile : tiles)
+				job.renderTile(tile, step);
+			return;
+		}
+
+		List<Future<?>> futures = new ArrayList<>(tiles.size());
+		for (Tile tile : tiles)
+			futures.add(executor.submit(() -> job.renderTile(tile, step)));
+
+		for (Future<?> future : futures)
+			future.get();
+	}
+
+	/**
+	 * Renders the image on the work-stealing pool. The image is recursively split
+	 * into sub-regions until a region holds no more pixels than a single tile.
+	 */
+	private void renderForkJoin(RenderJob job, int step) {
+		BufferedImage img = job.image();
+		int tileSize = job.scene().getTileSize();
+
+		Tile image = new Tile(0, 0, img.getWidth(), img.getHeight());
+		forkJoinPool.invoke(new RegionAction(job, image, tileSize * tileSize, step));
+	}
+
+	/**
+	 * Stops accepting new renders. Renders in progress are completed.
+	 */
+	public void shutdown() {
+		coordinator.shutdown();
+		executor.shutdown();
+		forkJoinPool.shutdown();
+	}
+
+	@Override
+	public void close() {
+		shutdown();
+	}
+}
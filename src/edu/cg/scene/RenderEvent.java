@@ -0,0 +1,58 @@
+package edu.cg.scene;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A flight recorder event that spans the passes of a render, from its first
+ * tile until it completes, fails or is cancelled.
+ */
+@Name("edu.cg.Render")
+@Label("Render")
+@Category("Ray Tracer")
+@Description("The passes of a render of a scene")
+class RenderEvent extends Event {
+	@Label("Scene")
+	String sceneName;
+
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	@Label("Anti Aliasing Factor")
+	int antiAliasingFactor;
+
+	@Label("Max Recursion Level")
+	int maxRecursionLevel;
+
+	@Label("Fork/Join")
+	boolean forkJoin;
+
+	@Label("Setup Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long setupNanos;
+
+	@Label("Primary Rays")
+	long primaryRays;
+
+	@Label("Shadow Rays")
+	long shadowRays;
+
+	@Label("Reflection Rays")
+	long reflectionRays;
+
+	@Label("Refraction Rays")
+	long refractionRays;
+
+	@Label("Intersection Tests")
+	long intersectionTests;
+
+	@Label("Completed")
+	boolean completed;
+}
@@ -0,0 +1,110 @@
+package edu.cg.scene;
+
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * A handle to a render that runs in the background. It reports the progress of
+ * the render and allows to cancel it.
+ */
+public class RenderHandle implements Future<BufferedImage> {
+	private final RenderJob job;
+	private final CompletableFuture<BufferedImage> result;
+
+	RenderHandle(RenderJob job, CompletableFuture<BufferedImage> result) {
+		this.job = job;
+		this.result = result;
+	}
+
+	/**
+	 * Stops the render. Tiles that are being traced stop at their next row, and
+	 * the tiles that haven't started are skipped. The handle is completed, as
+	 * cancelled, only once the render has stopped using the render threads.
+	 * @return true if the render hadn't completed yet. A render that is already
+	 *         past its last check completes normally nevertheless.
+	 */
+	public boolean cancel() {
+		job.cancel();
+		return !result.isDone();
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return cancel();
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return result.isCancelled();
+	}
+
+	@Override
+	public boolean isDone() {
+		return result.isDone();
+	}
+
+	/**
+	 * Returns the fraction of the pixels that have been traced, between 0 and 1.
+	 */
+	public double progress() {
+		return job.progress();
+	}
+
+	/**
+	 * Estimates the remaining time of the render from its average rate so far.
+	 * @return the estimated time, or null if nothing has been traced yet.
+	 */
+	public Duration estimatedTimeRemaining() {
+		long nanos = job.estimatedNanosRemaining();
+		return nanos < 0 ? null : Duration.ofNanos(nanos);
+	}
+
+	/**
+	 * Takes a snapshot of the statistics of the render. While the render runs,
+	 * the snapshot holds the tiles that have been completed so far.
+	 */
+	public RenderStats stats() {
+		return job.stats();
+	}
+
+	/**
+	 * Returns the costs of the tiles of the render. While the render runs,
+	 * they hold the tiles that have been completed so far.
+	 */
+	public TileCosts tileCosts() {
+		return job.tileCosts();
+	}
+
+	/**
+	 * Returns the image that is being rendered. While the render runs, the image
+	 * holds the tiles that have been completed so far.
+	 */
+	public BufferedImage image() {
+		return job.image();
+	}
+
+	/**
+	 * Registers an action that is invoked once the render completes, fails or is cancelled.
+	 * @param action - receives the image, or the failure if there is one
+	 */
+	public void whenComplete(BiConsumer<BufferedImage, Throwable> action) {
+		result.whenComplete(action);
+	}
+
+	@Override
+	public BufferedImage get() throws InterruptedException, ExecutionException {
+		return result.get();
+	}
+
+	@Override
+	public BufferedImage get(long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+		return result.get(timeout, unit);
+	}
+}
@@ -0,0 +1,492 @@
+package edu.cg.scene;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.cg.Logger;
+import edu.cg.algebra.Ops;
+import edu.cg.algebra.Vec;
+import edu.cg.scene.camera.PinholeCamera;
+import edu.cg.scene.camera.PrimaryRays;
+import edu.cg.scene.objects.Surface;
+
+/**
+ * The state of a single render of a scene: the camera configured for the
+ * requested resolution, the output image and the progress of the render.
+ * Every render owns its job, so the same scene can be rendered concurrently.
+ */
+class RenderJob {
+	// The block size of the first pass of a progressive render.
+	static final int PROGRESSIVE_STEP = 8;
+	// The step of the adaptive anti aliasing pass, which follows the pass of step 1.
+	static final int REFINEMENT_STEP = 0;
+	// The increment of SplitMix64, which keeps a zero sample seed away from the mixer's fixed point.
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private final Scene scene;
+	private final CompiledScene compiled; // the surfaces, materials and lights as they were when the render started
+	private final PinholeCamera camera;
+	private final BufferedImage img;
+	private final int[] pixels; // the backing array of img, in row-major 0xRRGGBB
+	private final RenderListener listener;
+	private final Logger logger;
+	private final int coarsestStep;
+
+	// Adaptive anti aliasing: pixels that differ from a neighbour are traced
+	// again with samplesPerAxis X samplesPerAxis samples. A render with a
+	// deadline may lower it before the refinement pass starts.
+	private int samplesPerAxis;
+	private final int contrastThreshold; // in channel units, 0-255
+	// The surface hit by every pixel, null without anti aliasing. Both buffers
+	// span the whole image, so they are released when the render finishes.
+	private Surface[] primarySurfaces;
+	private int[] firstSamples = null; // the colors of the pass of step 1, taken before the refinement
+
+	private final long startTime;
+	private final long deadline; // in System.nanoTime() units, 0 if the render has no deadline
+	private final long totalPixels;
+	private final LongAdder tracedPixels = new LongAdder();
+	private final RenderCounters counters = new RenderCounters();
+	// The occluder cache of every render thread. It outlives the trace context
+	// of a tile, so the next tile of the same thread starts with a warm cache.
+	private final ThreadLocal<Surface[]> lastOccluders;
+	private final TileCosts tileCosts;
+	private final long setupStartTime;
+	private final long setupNanos;
+	private volatile long endTime = 0; // 0 while the render runs
+	private volatile boolean cancelled = false;
+
+	// The recursion limit of the tiles that haven't started yet. It is lowered
+	// when the render is projected to miss its deadline.
+	private volatile int maxRecursionLevel;
+	// The start of the time window that is used to project the remaining time.
+	private long windowStartTime;
+	private long windowStartPixels = 0;
+
+	/**
+	 * @param budgetNanos - the time the render may take, or 0 if it may take as long as it needs
+	 */
+	RenderJob(Scene scene, int imgWidth, int imgHeight, double viewAngle, Logger logger, RenderListener listener,
+			long budgetNanos) {
+		RenderSetupEvent setupEvent = new RenderSetupEvent();
+		setupEvent.begin();
+		this.setupStartTime = System.nanoTime();
+		this.scene = scene;
+		this.logger = logger;
+		this.listener = listener;
+		this.coarsestStep = scene.getRenderProgressive() ? PROGRESSIVE_STEP : 1;
+		this.camera = scene.renderCamera(imgWidth, imgHeight, viewAngle);
+		this.compiled = scene.compile();
+		int lightCount = compiled.lights.size();
+		this.lastOccluders = ThreadLocal.withInitial(() -> new Surface[lightCount]);
+		this.img = new BufferedImage(imgWidth, imgHeight, BufferedImage.TYPE_INT_RGB);
+		this.pixels = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+		this.tileCosts = new TileCosts(imgWidth, imgHeight, scene.getTileSize());
+		this.samplesPerAxis = Math.max(1, scene.getFactor());
+		this.contrastThreshold = (int) Math.round(scene.getAntiAliasingThreshold() * 255);
+		this.primarySurfaces = samplesPerAxis > 1 ? new Surface[imgWidth * imgHeight] : null;
+
+		this.maxRecursionLevel = scene.getMaxRecursionLevel();
+		this.totalPixels = (long) imgWidth * imgHeight;
+		this.startTime = System.nanoTime();
+		this.windowStartTime = startTime;
+		this.deadline = budgetNanos > 0 ? startTime + budgetNanos : 0;
+		this.setupNanos = startTime - setupStartTime;
+
+		setupEvent.end();
+		if (setupEvent.shouldCommit()) {
+			setupEvent.sceneName = scene.getName();
+			setupEvent.surfaces = compiled.accelerator.size();
+			setupEvent.materials = compiled.materialCount();
+			setupEvent.lights = compiled.lights.size();
+			setupEvent.commit();
+		}
+	}
+
+	Scene scene() {
+		return scene;
+	}
+
+	BufferedImage image() {
+		return img;
+	}
+
+	RenderListener listener() {
+		return listener;
+	}
+
+	/**
+	 * Returns the block size of the first pass. A progressive render halves it
+	 * on every pass until it reaches single pixels; a regular render has a single
+	 * pass of step 1.
+	 */
+	int coarsestStep() {
+		return coarsestStep;
+	}
+
+	/**
+	 * Returns true if the pass of step 1 is followed by a pass that anti aliases
+	 * the pixels on edges.
+	 */
+	boolean antiAliases() {
+		return samplesPerAxis > 1;
+	}
+
+	/**
+	 * Returns the number of samples per axis of the pixels that are anti aliased.
+	 */
+	int samplesPerAxis() {
+		return samplesPerAxis;
+	}
+
+	/**
+	 * Keeps the colors of the pass of step 1, so the refinement pass compares
+	 * every pixel with its neighbours before any of them is refined. A render
+	 * with a deadline lowers the samples per axis to what it can still afford.
+	 * @return true if the edges are still to be refined.
+	 */
+	boolean beginRefinement() {
+		firstSamples = pixels.clone();
+		if (deadline != 0)
+			fitRefinementToDeadline();
+		return antiAliases();
+	}
+
+	/**
+	 * Lowers the samples per axis of the refinement pass to the most that all
+	 * the edges can be refined with before the deadline, at the rate the
+	 * pixels have been traced so far. If even 2 X 2 samples don't fit, the
+	 * edges are not refined.
+	 */
+	private void fitRefinementToDeadline() {
+		long traced = tracedPixels.sum();
+		if (traced == 0)
+			return;
+
+		long now = System.nanoTime();
+		double nanosPerSample = (double) (now - startTime) / traced;
+		long edges = countEdges();
+		int n = samplesPerAxis;
+		while (n > 1 && now + edges * n * n * nanosPerSample > deadline)
+			--n;
+		if (n < samplesPerAxis) {
+			logger.log("Render of " + scene.getName() + " can't refine its " + edges + " edge pixels with "
+					+ samplesPerAxis + "x" + samplesPerAxis + " samples before its deadline. "
+					+ (n > 1 ? "Using " + n + "x" + n + " samples." : "Skipping the anti aliasing."));
+			samplesPerAxis = n;
+		}
+	}
+
+	private long countEdges() {
+		long edges = 0;
+		for (int y = 0; y < img.getHeight(); ++y)
+			for (int x = 0; x < img.getWidth(); ++x)
+				if (isEdge(x, y, primarySurfaces, firstSamples))
+					++edges;
+		return edges;
+	}
+
+	void cancel() {
+		cancelled = true;
+	}
+
+	boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns the fraction of the pixels that have been traced, between 0 and 1.
+	 */
+	double progress() {
+		return totalPixels == 0 ? 1 : (double) tracedPixels.sum() / totalPixels;
+	}
+
+	/**
+	 * Returns the costs of the tiles that have been completed so far.
+	 */
+	TileCosts tileCosts() {
+		return tileCosts;
+	}
+
+	/**
+	 * Returns the recursion limit of the tiles that haven't started yet.
+	 */
+	int maxRecursionLevel() {
+		return maxRecursionLevel;
+	}
+
+	/**
+	 * Marks the end of the render, successful or not, for the wall time of its
+	 * stats, and releases the buffers of the anti aliasing pass.
+	 */
+	void finish() {
+		if (endTime == 0)
+			endTime = System.nanoTime();
+		primarySurfaces = null;
+		firstSamples = null;
+	}
+
+	/**
+	 * Takes a snapshot of the counters of the render. While the render runs,
+	 * the snapshot holds the tiles that have been completed so far.
+	 */
+	RenderStats stats() {
+		long end = endTime == 0 ? System.nanoTime() : endTime;
+		return new RenderStats(scene.getName(), img.getWidth(), img.getHeight(), end - setupStartTime, setupNanos,
+				counters);
+	}
+
+	/**
+	 * Estimates the remaining time of the render, in nanoseconds, from its
+	 * average rate so far. Returns -1 if nothing has been traced yet.
+	 */
+	long estimatedNanosRemaining() {
+		double progress = progress();
+		if (progress <= 0)
+			return -1;
+		return (long) ((System.nanoTime() - startTime) * (1 - progress) / progress);
+	}
+
+	/**
+	 * Renders the given tile for the current pass, with a fresh trace context
+	 * that shares the occluder cache of the calling thread, so the occluders
+	 * that are cached by one worker are never seen by another.
+	 * Tiles never overlap, so the workers don't need to synchronize the writes.
+	 * @param tile - the tile to render
+	 * @param step - the block size of the current pass, or REFINEMENT_STEP
+	 */
+	void renderTile(Tile tile, int step) {
+		TileEvent event = new TileEvent();
+		event.begin();
+		long tileStart = System.nanoTime();
+		TraceContext context = new TraceContext(compiled, lastOccluders.get(), maxRecursionLevel, randomSeed(tile, step));
+		long writeNanos = step == REFINEMENT_STEP ? refineTile(tile, context) : traceTile(tile, step, context);
+		if (writeNanos < 0)
+			return; // cancelled
+
+		long tileNanos = System.nanoTime() - tileStart;
+		counters.addTile(context, tileNanos, writeNanos);
+		tileCosts.add(tile, tileNanos, context.rays());
+		event.end();
+		if (event.shouldCommit()) {
+			event.sceneName = scene.getName();
+			event.x = tile.x();
+			event.y = tile.y();
+			event.width = tile.width();
+			event.height = tile.height();
+			event.step = step;
+			event.primaryRays = context.primaryRays();
+			event.rays = context.rays();
+			event.commit();
+		}
+		listener.tileCompleted(tile, step);
+		if (deadline != 0)
+			adjustToDeadline();
+	}
+
+	/**
+	 * Traces one pixel per step X step block of the given tile and fills the
+	 * whole block with its packed RGB value, straight into the image's backing
+	 * array. Pixels that were already traced by a coarser pass are skipped, so
+	 * the passes of a progressive render trace every pixel exactly once.
+	 * Every row of blocks is traced into a buffer first and written out as a
+	 * whole, so the tracing and the writing are timed separately.
+	 * @return the time spent writing into the image, or -1 if the render was cancelled.
+	 */
+	private long traceTile(Tile tile, int step, TraceContext context) {
+		int imgWidth = img.getWidth();
+		Surface[] primarySurfaces = this.primarySurfaces;
+		PrimaryRays rays = camera.primaryRays(tile.x(), tile.width());
+		int[] row = new int[(tile.width() + step - 1) / step];
+		long writeNanos = 0;
+		int traced = 0;
+		for (int dy = 0; dy < tile.height(); dy += step) {
+			if (cancelled)
+				return -1;
+
+			// Every other block of every other row was traced by the previous pass.
+			boolean skipAnchors = step < coarsestStep && dy % (2 * step) == 0;
+			int y = tile.y() + dy;
+			rays.computeRow(y, skipAnchors ? 2 * step : step, skipAnchors ? step : 0);
+			for (int i = skipAnchors ? 1 : 0; i < row.length; i += skipAnchors ? 2 : 1) {
+				int x = tile.x() + i * step;
+				row[i] = scene.calcColor(rays.ray(x), context).toRGB();
+				if (primarySurfaces != null)
+					primarySurfaces[y * imgWidth + x] = context.primarySurface();
+				++traced;
+			}
+
+			long writeStart = System.nanoTime();
+			int height = Math.min(step, tile.height() - dy);
+			for (int i = skipAnchors ? 1 : 0; i < row.length; i += skipAnchors ? 2 : 1)
+				fill(tile.x() + i * step, y, Math.min(step, tile.width() - i * step), height, row[i]);
+			writeNanos += System.nanoTime() - writeStart;
+		}
+
+		tracedPixels.add(traced);
+		return writeNanos;
+	}
+
+	/**
+	 * Returns the seed of the random sample positions of a tile. It depends only
+	 * on the scene's sample seed and on the tile, so renders are reproducible
+	 * whichever thread traces the tile. Every coordinate goes through a 64-bit
+	 * mixer, so tiles don't share seeds (as they would with a linear hash, where
+	 * a step in x trades against a step in y) and their jitter isn't correlated.
+	 */
+	private long randomSeed(Tile tile, int step) {
+		long seed = mix(scene.getSampleSeed() + GOLDEN_GAMMA);
+		seed = mix(seed ^ tile.x());
+		seed = mix(seed ^ tile.y());
+		return mix(seed ^ step);
+	}
+
+	/**
+	 * The finalizer of SplitMix64: a bijection of the longs that spreads every
+	 * input bit over all the output bits.
+	 */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Traces the pixels of the given tile that differ from one of their
+	 * neighbours again, with samplesPerAxis X samplesPerAxis samples in the
+	 * scene's sampling pattern, and writes their average. Tiles that start
+	 * after the deadline of the render are not refined.
+	 * @return the time spent writing into the image, or -1 if the render was cancelled.
+	 */
+	private long refineTile(Tile tile, TraceContext context) {
+		// A render that already finished has released the buffers.
+		Surface[] primarySurfaces = this.primarySurfaces;
+		int[] firstSamples = this.firstSamples;
+		if (primarySurfaces == null || firstSamples == null
+				|| (deadline != 0 && System.nanoTime() > deadline))
+			return 0;
+
+		int imgWidth = img.getWidth();
+		int samplesPerAxis = this.samplesPerAxis;
+		int sampleCount = samplesPerAxis * samplesPerAxis;
+		SamplingPattern pattern = scene.getSamplingPattern();
+		SplittableRandom random = pattern == SamplingPattern.JITTERED ? context.random() : null;
+		CornerSamples corners = pattern == SamplingPattern.SHARED_CORNERS
+				? new CornerSamples(scene, camera, samplesPerAxis, tile)
+				: null;
+		Vec sum = new Vec();
+		int[] row = new int[tile.width()];
+		long writeNanos = 0;
+		int refined = 0;
+		for (int y = tile.y(); y < tile.y() + tile.height(); ++y) {
+			if (cancelled)
+				return -1;
+
+			if (corners != null)
+				corners.moveTo(y);
+			for (int dx = 0; dx < tile.width(); ++dx) {
+				int x = tile.x() + dx;
+				row[dx] = -1; // not refined
+				if (!isEdge(x, y, primarySurfaces, firstSamples))
+					continue;
+
+				if (corners != null) {
+					corners.pixelColor(sum, x, context);
+				} else {
+					sum.set(0, 0, 0);
+					for (int k = 0; k < sampleCount; ++k)
+						addClipped(sum, scene.calcColor(camera, camera.transformSample(x, y, k, sampleCount, random),
+								context));
+					Ops.scaleInto(sum, 1.0 / sampleCount, sum);
+				}
+				row[dx] = sum.toRGB();
+				++refined;
+			}
+
+			long writeStart = System.nanoTime();
+			for (int dx = 0; dx < tile.width(); ++dx)
+				if (row[dx] != -1)
+					pixels[y * imgWidth + tile.x() + dx] = row[dx];
+			writeNanos += System.nanoTime() - writeStart;
+		}
+
+		counters.antiAliasedPixels.add(refined);
+		return writeNanos;
+	}
+
+	/**
+	 * Adds a color to the sum, with every channel clipped to [0, 1] like the
+	 * image does, so a single over-exposed sample can't brighten a whole pixel.
+	 */
+	private static void addClipped(Vec sum, Vec color) {
+		sum.set(sum.x + Math.min(1, Math.max(0, color.x)), sum.y + Math.min(1, Math.max(0, color.y)),
+				sum.z + Math.min(1, Math.max(0, color.z)));
+	}
+
+	/**
+	 * Returns true if the first sample of the given pixel hit a different
+	 * surface than one of its 4 neighbours, or differs from it in color by
+	 * more than the contrast threshold.
+	 */
+	private boolean isEdge(int x, int y, Surface[] primarySurfaces, int[] firstSamples) {
+		int imgWidth = img.getWidth();
+		int i = y * imgWidth + x;
+		return (x > 0 && differ(i, i - 1, primarySurfaces, firstSamples))
+				|| (x < imgWidth - 1 && differ(i, i + 1, primarySurfaces, firstSamples))
+				|| (y > 0 && differ(i, i - imgWidth, primarySurfaces, firstSamples))
+				|| (y < img.getHeight() - 1 && differ(i, i + imgWidth, primarySurfaces, firstSamples));
+	}
+
+	private boolean differ(int i, int j, Surface[] primarySurfaces, int[] firstSamples) {
+		if (primarySurfaces[i] != primarySurfaces[j])
+			return true;
+
+		int a = firstSamples[i];
+		int b = firstSamples[j];
+		return Math.abs((a >> 16 & 0xff) - (b >> 16 & 0xff)) > contrastThreshold
+				|| Math.abs((a >> 8 & 0xff) - (b >> 8 & 0xff)) > contrastThreshold
+				|| Math.abs((a & 0xff) - (b & 0xff)) > contrastThreshold;
+	}
+
+	private void fill(int x, int y, int width, int height, int rgb) {
+		int imgWidth = img.getWidth();
+		for (int row = y * imgWidth; row < (y + height) * imgWidth; row += imgWidth)
+			for (int i = row + x; i < row + x + width; ++i)
+				pixels[i] = rgb;
+	}
+
+	/**
+	 * Projects the remaining time from the rate of the tiles that were traced
+	 * since the last adjustment. If the render would miss its deadline, the
+	 * recursion limit of the remaining tiles is scaled down by the fraction of
+	 * the remaining work that still fits, since the cost of a pixel grows
+	 * about linearly with the levels it may trace.
+	 */
+	private synchronized void adjustToDeadline() {
+		int maxLevel = maxRecursionLevel;
+		if (maxLevel <= 1)
+			return;
+
+		long now = System.nanoTime();
+		long traced = tracedPixels.sum();
+		long windowPixels = traced - windowStartPixels;
+		// Wait for enough samples before trusting the rate of the window.
+		if (windowPixels < Math.max(1, totalPixels / 50))
+			return;
+
+		double nanosPerPixel = (double) (now - windowStartTime) / windowPixels;
+		double remaining = nanosPerPixel * (totalPixels - traced);
+		double available = deadline - now;
+		if (remaining > available) {
+			int level = available <= 0 ? 1 : (int) (maxLevel * available / remaining);
+			level = Math.max(1, Math.min(maxLevel - 1, level));
+			maxRecursionLevel = level;
+			windowStartTime = now;
+			windowStartPixels = traced;
+			logger.log("Render of " + scene.getName() + " is behind its deadline. Lowering the recursion level to "
+					+ level);
+		}
+	}
+}
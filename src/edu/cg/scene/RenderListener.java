@@ -0,0 +1,41 @@
+package edu.cg.scene;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Receives the progress of a render. The callbacks are invoked from the render
+ * threads, so implementations that touch Swing components should hand the work
+ * over to the Event Dispatch Thread.
+ */
+public interface RenderListener {
+	/**
+	 * A listener that ignores all the events.
+	 */
+	public static final RenderListener NONE = new RenderListener() {
+	};
+
+	/**
+	 * Called once, before any ray is traced.
+	 * @param img - the image that is being rendered. It is filled in while the render runs.
+	 */
+	public default void renderStarted(BufferedImage img) {
+	}
+
+	/**
+	 * Called whenever a tile has been written to the image.
+	 * @param tile - the completed tile
+	 * @param step - the edge length of the pixel blocks the tile was filled with;
+	 *             1 means every pixel of the tile has been traced, and 0 means
+	 *             the edges of the tile have been anti aliased.
+	 */
+	public default void tileCompleted(Tile tile, int step) {
+	}
+
+	/**
+	 * Called when all the tiles of a pass have been written to the image.
+	 * @param step - the edge length of the pixel blocks of the pass, or 0 for
+	 *             the anti aliasing pass that follows the pass of step 1
+	 */
+	public default void passCompleted(int step) {
+	}
+}
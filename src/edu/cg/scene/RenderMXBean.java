@@ -0,0 +1,37 @@
+package edu.cg.scene;
+
+/**
+ * The management interface of a running render. Every render registers one
+ * under the domain "edu.cg.scene" while it runs, so it can be watched from
+ * JConsole or any other JMX client.
+ */
+public interface RenderMXBean {
+	String getSceneName();
+
+	/**
+	 * Returns the fraction of the pixels that have been traced, between 0 and 1.
+	 */
+	double getProgress();
+
+	long getElapsedMillis();
+
+	int getMaxRecursionLevel();
+
+	long getTilesCompleted();
+
+	long getPrimaryRays();
+
+	long getShadowRays();
+
+	long getShadowCacheHits();
+
+	long getShadowCacheMisses();
+
+	long getReflectionRays();
+
+	long getRefractionRays();
+
+	long getIntersectionTests();
+
+	double getRaysPerSecond();
+}
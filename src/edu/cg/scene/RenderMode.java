@@ -0,0 +1,18 @@
+package edu.cg.scene;
+
+/**
+ * The scheduling strategy used to distribute the image between the render threads.
+ */
+public enum RenderMode {
+	/**
+	 * The image is split into fixed tiles which are submitted, in row-major
+	 * order, to a fixed thread pool.
+	 */
+	FIXED_POOL,
+
+	/**
+	 * The image is recursively split into sub-regions on a fork/join pool, so
+	 * idle threads can steal work from threads that landed on expensive regions.
+	 */
+	FORK_JOIN
+}
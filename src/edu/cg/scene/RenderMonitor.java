@@ -0,0 +1,115 @@
+package edu.cg.scene;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+/**
+ * Exposes a running render through JMX. Every call takes a fresh snapshot of
+ * the render's counters.
+ */
+class RenderMonitor implements RenderMXBean {
+	private static final AtomicLong nextId = new AtomicLong();
+
+	private final RenderJob job;
+
+	private RenderMonitor(RenderJob job) {
+		this.job = job;
+	}
+
+	/**
+	 * Registers a monitor of the given render on the platform MBean server.
+	 * @return the name of the monitor, or null if it couldn't be registered.
+	 */
+	static ObjectName register(RenderJob job) {
+		try {
+			ObjectName name = new ObjectName("edu.cg.scene:type=Render,scene="
+					+ ObjectName.quote(String.valueOf(job.scene().getName())) + ",id=" + nextId.incrementAndGet());
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(new StandardMBean(new RenderMonitor(job), RenderMXBean.class, true), name);
+			return name;
+		} catch (JMException | SecurityException e) {
+			// Monitoring is optional, the render runs without it.
+			return null;
+		}
+	}
+
+	static void unregister(ObjectName name) {
+		if (name == null)
+			return;
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+		} catch (JMException | SecurityException e) {
+			// Already gone.
+		}
+	}
+
+	@Override
+	public String getSceneName() {
+		return job.scene().getName();
+	}
+
+	@Override
+	public double getProgress() {
+		return job.progress();
+	}
+
+	@Override
+	public long getElapsedMillis() {
+		return job.stats().wallNanos() / 1_000_000;
+	}
+
+	@Override
+	public int getMaxRecursionLevel() {
+		return job.maxRecursionLevel();
+	}
+
+	@Override
+	public long getTilesCompleted() {
+		return job.stats().tiles();
+	}
+
+	@Override
+	public long getPrimaryRays() {
+		return job.stats().primaryRays();
+	}
+
+	@Override
+	public long getShadowRays() {
+		return job.stats().shadowRays();
+	}
+
+	@Override
+	public long getShadowCacheHits() {
+		return job.stats().shadowCacheHits();
+	}
+
+	@Override
+	public long getShadowCacheMisses() {
+		return job.stats().shadowCacheMisses();
+	}
+
+	@Override
+	public long getReflectionRays() {
+		return job.stats().reflectionRays();
+	}
+
+	@Override
+	public long getRefractionRays() {
+		return job.stats().refractionRays();
+	}
+
+	@Override
+	public long getIntersectionTests() {
+		return job.stats().intersectionTests();
+	}
+
+	@Override
+	public double getRaysPerSecond() {
+		return job.stats().raysPerSecond();
+	}
+}
@@ -0,0 +1,30 @@
+package edu.cg.scene;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * A rendered image together with the statistics and the tile costs of its render.
+ */
+public class RenderResult {
+	private final BufferedImage image;
+	private final RenderStats stats;
+	private final TileCosts tileCosts;
+
+	RenderResult(BufferedImage image, RenderStats stats, TileCosts tileCosts) {
+		this.image = image;
+		this.stats = stats;
+		this.tileCosts = tileCosts;
+	}
+
+	public BufferedImage image() {
+		return image;
+	}
+
+	public RenderStats stats() {
+		return stats;
+	}
+
+	public TileCosts tileCosts() {
+		return tileCosts;
+	}
+}
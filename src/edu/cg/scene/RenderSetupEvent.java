@@ -0,0 +1,30 @@
+package edu.cg.scene;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event of the setup of a render: the camera, the compiled
+ * scene and the image.
+ */
+@Name("edu.cg.RenderSetup")
+@Label("Render Setup")
+@Category("Ray Tracer")
+@Description("The camera, the compiled scene and the image of a render")
+class RenderSetupEvent extends Event {
+	@Label("Scene")
+	String sceneName;
+
+	@Label("Surfaces")
+	int surfaces;
+
+	@Label("Materials")
+	@Description("The distinct materials of the surfaces")
+	int materials;
+
+	@Label("Lights")
+	int lights;
+}
@@ -0,0 +1,172 @@
+package edu.cg.scene;
+
+/**
+ * A snapshot of the counters and the phase timings of a render. The trace and
+ * write times are summed over all the render threads, so on a parallel render
+ * they may exceed the wall time.
+ */
+public class RenderStats {
+	private final String sceneName;
+	private final int width, height;
+	private final long wallNanos;
+	private final long setupNanos;
+	private final long traceNanos;
+	private final long writeNanos;
+	private final long tiles;
+	private final long maxTileNanos;
+	private final long primaryRays;
+	private final long shadowRays;
+	private final long reflectionRays;
+	private final long refractionRays;
+	private final long intersectionTests;
+	private final long shadowCacheHits;
+	private final long shadowCacheMisses;
+	private final long antiAliasedPixels;
+
+	RenderStats(String sceneName, int width, int height, long wallNanos, long setupNanos, RenderCounters counters) {
+		this.sceneName = sceneName;
+		this.width = width;
+		this.height = height;
+		this.wallNanos = wallNanos;
+		this.setupNanos = setupNanos;
+		this.traceNanos = counters.traceNanos.sum();
+		this.writeNanos = counters.writeNanos.sum();
+		this.tiles = counters.tiles.sum();
+		this.maxTileNanos = counters.maxTileNanos.get();
+		this.primaryRays = counters.primaryRays.sum();
+		this.shadowRays = counters.shadowRays.sum();
+		this.reflectionRays = counters.reflectionRays.sum();
+		this.refractionRays = counters.refractionRays.sum();
+		this.intersectionTests = counters.intersectionTests.sum();
+		this.shadowCacheHits = counters.shadowCacheHits.sum();
+		this.shadowCacheMisses = counters.shadowCacheMisses.sum();
+		this.antiAliasedPixels = counters.antiAliasedPixels.sum();
+	}
+
+	public String sceneName() {
+		return sceneName;
+	}
+
+	public int width() {
+		return width;
+	}
+
+	public int height() {
+		return height;
+	}
+
+	/**
+	 * Returns the time from the start of the setup to the end of the render, or
+	 * to the snapshot if the render is still running.
+	 */
+	public long wallNanos() {
+		return wallNanos;
+	}
+
+	/**
+	 * Returns the time it took to set up the camera, the compiled scene
+	 * and the image.
+	 */
+	public long setupNanos() {
+		return setupNanos;
+	}
+
+	/**
+	 * Returns the time the render threads spent tracing, summed over the threads.
+	 */
+	public long traceNanos() {
+		return traceNanos;
+	}
+
+	/**
+	 * Returns the time the render threads spent writing into the image, summed over the threads.
+	 */
+	public long writeNanos() {
+		return writeNanos;
+	}
+
+	/**
+	 * Returns the number of tiles that were completed, over all the passes.
+	 */
+	public long tiles() {
+		return tiles;
+	}
+
+	/**
+	 * Returns the time it took to render the slowest tile.
+	 */
+	public long maxTileNanos() {
+		return maxTileNanos;
+	}
+
+	public long primaryRays() {
+		return primaryRays;
+	}
+
+	public long shadowRays() {
+		return shadowRays;
+	}
+
+	public long reflectionRays() {
+		return reflectionRays;
+	}
+
+	public long refractionRays() {
+		return refractionRays;
+	}
+
+	/**
+	 * Returns the number of rays of all the types.
+	 */
+	public long totalRays() {
+		return primaryRays + shadowRays + reflectionRays + refractionRays;
+	}
+
+	/**
+	 * Returns the number of ray-surface tests, of the surfaces themselves and
+	 * not of the bounding boxes.
+	 */
+	public long intersectionTests() {
+		return intersectionTests;
+	}
+
+	/**
+	 * Returns the number of shadow rays that were blocked by the cached occluder.
+	 */
+	public long shadowCacheHits() {
+		return shadowCacheHits;
+	}
+
+	/**
+	 * Returns the number of shadow rays whose cached occluder didn't block them.
+	 * Shadow rays without a cached occluder are neither hits nor misses.
+	 */
+	public long shadowCacheMisses() {
+		return shadowCacheMisses;
+	}
+
+	/**
+	 * Returns the number of pixels that were traced again with several samples.
+	 */
+	public long antiAliasedPixels() {
+		return antiAliasedPixels;
+	}
+
+	/**
+	 * Returns the number of rays of all the types that were traced per second of wall time.
+	 */
+	public double raysPerSecond() {
+		return wallNanos == 0 ? 0 : totalRays() / (wallNanos / 1e9);
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%s %dx%d: %.1f ms (setup %.1f ms, trace %.1f ms, write %.1f ms over all threads), "
+						+ "%d tiles (slowest %.2f ms), rays: %d primary, %d shadow (%d cache hits, %d misses), "
+						+ "%d reflection, %d refraction, %d intersection tests, %d anti aliased pixels, %.0f rays/s",
+				sceneName, width, height, wallNanos / 1e6, setupNanos / 1e6, traceNanos / 1e6, writeNanos / 1e6, tiles,
+				maxTileNanos / 1e6, primaryRays, shadowRays, shadowCacheHits, shadowCacheMisses, reflectionRays,
+				refractionRays, intersectionTests, antiAliasedPixels, raysPerSecond());
+	}
+}
@@ -0,0 +1,27 @@
+package edu.cg.scene;
+
+/**
+ * The positions of the samples of a pixel that is anti aliased.
+ */
+public enum SamplingPattern {
+	/**
+	 * The pixel is split into equal strata, and every stratum is sampled at its
+	 * center.
+	 */
+	GRID,
+
+	/**
+	 * The pixel is split into equal strata, and every stratum is sampled at a
+	 * random position within it. The positions are drawn from a generator of
+	 * the tile, seeded by the scene's sample seed, so renders are reproducible.
+	 */
+	JITTERED,
+
+	/**
+	 * The pixel is sampled at the corners of its strata, with the corners on
+	 * its edges shared with the neighbouring pixels. Anti aliasing every pixel
+	 * of a tile with N X N strata traces (N*width+1)*(N*height+1) rays rather
+	 * than (N+1)^2 per pixel.
+	 */
+	SHARED_CORNERS
+}
@@ -1,19 +1,16 @@
 package edu.cg.scene;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 
 import edu.cg.Logger;
 import edu.cg.UnimplementedMethodException;
 import edu.cg.algebra.*;
 import edu.cg.scene.camera.PinholeCamera;
 import edu.cg.scene.lightSources.Light;
+import edu.cg.scene.lightSources.LightTable;
 import edu.cg.scene.objects.Surface;
 
 public class Scene {
@@ -22,6 +19,18 @@ public class Scene {
 	private int antiAliasingFactor = 1; // gets the values of 1, 2 and 3
 	private boolean renderRefarctions = false;
 	private boolean renderReflections = false;
+	private int tileSize = 32; // edge length, in pixels, of a single render task
+	private RenderMode renderMode = RenderMode.FIXED_POOL;
+	private boolean renderProgressive = false;
+	// Secondary rays whose color would reach the pixel with a lower weight are not traced.
+	private double minContribution = 0.001;
+	// The secondary rays a pixel may trace before it follows only the dominant branch of every hit.
+	private int secondaryRayBudget = 16;
+	// Neighbouring pixels whose colors differ by more than this fraction of a
+	// channel's range are anti aliased.
+	private double antiAliasingThreshold = 0.1;
+	private SamplingPattern samplingPattern = SamplingPattern.GRID;
+	private long sampleSeed = 0; // the seed of the jittered sample positions
 
 	private PinholeCamera camera;
 	private Vec ambient = new Vec(1, 1, 1); // white
@@ -65,6 +74,28 @@ public class Scene {
 		return this;
 	}
 
+	/**
+	 * Sets the contrast above which a pixel is anti aliased: a pixel whose
+	 * color differs from one of its neighbours by more than this fraction of
+	 * a channel's range. Pixels whose neighbours hit a different surface are
+	 * anti aliased regardless of their colors. 0 anti aliases every pixel that
+	 * differs from a neighbour at all.
+	 */
+	public Scene initAntiAliasingThreshold(double antiAliasingThreshold) {
+		this.antiAliasingThreshold = antiAliasingThreshold;
+		return this;
+	}
+
+	public Scene initSamplingPattern(SamplingPattern samplingPattern) {
+		this.samplingPattern = samplingPattern;
+		return this;
+	}
+
+	public Scene initSampleSeed(long sampleSeed) {
+		this.sampleSeed = sampleSeed;
+		return this;
+	}
+
 	public Scene initName(String name) {
 		this.name = name;
 		return this;
@@ -80,6 +111,43 @@ public class Scene {
 		return this;
 	}
 
+	public Scene initTileSize(int tileSize) {
+		this.tileSize = tileSize;
+		return this;
+	}
+
+	public Scene initRenderMode(RenderMode renderMode) {
+		this.renderMode = renderMode;
+		return this;
+	}
+
+	public Scene initRenderProgressive(boolean renderProgressive) {
+		this.renderProgressive = renderProgressive;
+		return this;
+	}
+
+	/**
+	 * Sets the weight below which secondary rays are not traced. The weight of
+	 * a ray is the product of the reflection intensities along its path from
+	 * the camera. 0 traces every ray up to the max recursion level.
+	 */
+	public Scene initMinContribution(double minContribution) {
+		this.minContribution = minContribution;
+		return this;
+	}
+
+	/**
+	 * Sets the number of secondary rays a pixel may trace. A hit that both
+	 * reflects and refracts spends two of them; once the budget runs out,
+	 * every hit follows only its branch of the higher weight, so the ray tree
+	 * of a pixel grows linearly with the recursion level rather than
+	 * exponentially.
+	 */
+	public Scene initSecondaryRayBudget(int secondaryRayBudget) {
+		this.secondaryRayBudget = secondaryRayBudget;
+		return this;
+	}
+
 	// MARK: getters
 	public String getName() {
 		return name;
@@ -89,10 +157,30 @@ public class Scene {
 		return antiAliasingFactor;
 	}
 
+	public double getAntiAliasingThreshold() {
+		return antiAliasingThreshold;
+	}
+
+	public SamplingPattern getSamplingPattern() {
+		return samplingPattern;
+	}
+
+	public long getSampleSeed() {
+		return sampleSeed;
+	}
+
 	public int getMaxRecursionLevel() {
 		return maxRecursionLevel;
 	}
 
+	public double getMinContribution() {
+		return minContribution;
+	}
+
+	public int getSecondaryRayBudget() {
+		return secondaryRayBudget;
+	}
+
 	public boolean getRenderRefarctions() {
 		return renderRefarctions;
 	}
@@ -101,6 +189,18 @@ public class Scene {
 		return renderReflections;
 	}
 
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	public RenderMode getRenderMode() {
+		return renderMode;
+	}
+
+	public boolean getRenderProgressive() {
+		return renderProgressive;
+	}
+
 	@Override
 	public String toString() {
 		String endl = System.lineSeparator();
@@ -109,209 +209,295 @@ public class Scene {
 				+ endl + "Light sources:" + endl + lightSources + endl + "Surfaces:" + endl + surfaces;
 	}
 
-	private transient ExecutorService executor = null;
-	private transient Logger logger = null;
-
-	private void initSomeFields(int imgWidth, int imgHeight, Logger logger) {
-		this.logger = logger;
-		// TODO: initialize your additional field here.
-	}
-
+	/**
+	 * Renders the scene on the shared default RenderEngine.
+	 * @see RenderEngine#render(Scene, int, int, double, Logger)
+	 */
 	public BufferedImage render(int imgWidth, int imgHeight, double viewAngle, Logger logger)
 			throws InterruptedException, ExecutionException, IllegalArgumentException {
+		return RenderEngine.getDefault().render(this, imgWidth, imgHeight, viewAngle, logger);
+	}
 
-		initSomeFields(imgWidth, imgHeight, logger);
-
-		BufferedImage img = new BufferedImage(imgWidth, imgHeight, BufferedImage.TYPE_INT_RGB);
-		camera.initResolution(imgHeight, imgWidth, viewAngle);
-		int nThreads = Runtime.getRuntime().availableProcessors();
-		nThreads = nThreads < 2 ? 2 : nThreads;
-		this.logger.log("Intitialize executor. Using " + nThreads + " threads to render " + name);
-		executor = Executors.newFixedThreadPool(nThreads);
-
-		@SuppressWarnings("unchecked")
-		Future<Color>[][] futures = (Future<Color>[][]) (new Future[imgHeight][imgWidth]);
-
-		this.logger.log("Starting to shoot " + (imgHeight * imgWidth * antiAliasingFactor * antiAliasingFactor)
-				+ " rays over " + name);
-
-		for (int y = 0; y < imgHeight; ++y)
-			for (int x = 0; x < imgWidth; ++x)
-				futures[y][x] = calcColor(x, y);
-
-		this.logger.log("Done shooting rays.");
-		this.logger.log("Wating for results...");
-
-		for (int y = 0; y < imgHeight; ++y)
-			for (int x = 0; x < imgWidth; ++x) {
-				Color color = futures[y][x].get();
-				img.setRGB(x, y, color.getRGB());
-			}
-
-		executor.shutdown();
-
-		this.logger.log("Ray tracing of " + name + " has been completed.");
-
-		executor = null;
-		this.logger = null;
-
-		return img;
+	/**
+	 * Compiles the current surfaces, materials and lights of the scene into
+	 * their render-ready form. Called once at the start of every render, by
+	 * the render's job, which owns the result; so changes made to the scene
+	 * between renders are picked up, and concurrent renders don't share it.
+	 * @return the compiled scene.
+	 */
+	CompiledScene compile() {
+		return new CompiledScene(surfaces, lightSources, ambient, backgroundColor);
 	}
 
-	private Future<Color> calcColor(int x, int y) {
-		return executor.submit(() -> {
-			// TODO: You need to re-implement this method if you want to handle
-			// super-sampling. You're also free to change the given implementation if you
-			// want.
-			Point centerPoint = camera.transform(x, y);
-			Ray ray = new Ray(camera.getCameraPosition(), centerPoint);
-			Vec color = calcColor(ray, 0);
-			return color.toColor();
-		});
+	/**
+	 * Creates a copy of the scene's camera that is initialized to the given resolution.
+	 * The scene's own camera is left untouched, so concurrent renders don't share state.
+	 */
+	PinholeCamera renderCamera(int imgWidth, int imgHeight, double viewAngle) {
+		PinholeCamera renderCamera = new PinholeCamera(camera);
+		renderCamera.initResolution(imgHeight, imgWidth, viewAngle);
+		return renderCamera;
 	}
 
-	private Vec calcColor(Ray ray, int recursionLevel) {
-		if (recursionLevel >= maxRecursionLevel) {
-			// Base case
-			return new Vec();
-		}
+	/**
+	 * Calculates the color of a single sample of a pixel. The surface that the
+	 * sample hits is left in the context's primarySurface.
+	 * @param camera - the camera, initialized to the resolution of the render
+	 * @param x - the position in the x direction, in pixels
+	 * @param y - the position in the y direction, in pixels
+	 * @param context - the state of the calling render thread
+	 * @return a color vector, owned by the context and overwritten by the next call.
+	 */
+	Vec calcColor(PinholeCamera camera, double x, double y, TraceContext context) {
+		return calcColor(camera, camera.transform(x, y), context);
+	}
 
-		// Get the nearest intersection with the current ray
-		Hit minHit = this.findMinIntersection(ray);
+	/**
+	 * Calculates the color of the ray from the camera through the given point.
+	 * The surface that the ray hits is left in the context's primarySurface.
+	 * @param camera - the camera, initialized to the resolution of the render
+	 * @param planePoint - a point on the image plain, in model coordinates
+	 * @param context - the state of the calling render thread
+	 * @return a color vector, owned by the context and overwritten by the next call.
+	 */
+	Vec calcColor(PinholeCamera camera, Point planePoint, TraceContext context) {
+		Ray ray = new Ray(camera.getCameraPosition(), planePoint);
+		return calcColor(ray, context);
+	}
 
-		if (minHit == null){
-			return this.backgroundColor;
-		}
 
-		// Defines the ambient reflections of the surface within the scene.
-		Vec colorVec = minHit.getSurface().Ka().mult(this.ambient);
+	/**
+	 * Calculates the color of a primary ray into the context's color vector.
+	 * The ray tree is traced iteratively: every hit adds its own color,
+	 * weighted by the product of the intensities along its path, and pushes
+	 * its secondary rays onto the context's stack. Rays whose weight doesn't
+	 * exceed minContribution are never traced. The surface that the primary
+	 * ray hits is left in the context's primarySurface.
+	 * @param primaryRay - the ray from the camera
+	 * @param context - the state of the calling render thread
+	 * @return a color vector, owned by the context and overwritten by the next call.
+	 */
+	Vec calcColor(Ray primaryRay, TraceContext context) {
+		context.primaryRay();
+		Vec colorVec = context.color().set(0, 0, 0);
+		context.setPrimarySurface(null);
+		if (context.maxRecursionLevel() <= 0)
+			return colorVec;
+
+		CompiledScene compiled = context.scene();
+		double[] materials = compiled.materials;
+		Vec ambient = compiled.ambient;
+		context.resetSecondaryRayBudget(this.secondaryRayBudget);
+		context.push(primaryRay, 0, 1.0);
+		while (context.hasPending()) {
+			int slot = context.pop();
+			Ray ray = context.pendingRay(slot);
+			int recursionLevel = context.pendingLevel(slot);
+			double weight = context.pendingWeight(slot);
+
+			// Get the nearest intersection with the current ray
+			Hit minHit = compiled.accelerator.findMinIntersection(ray, context);
+			if (recursionLevel == 0 && minHit != null)
+				context.setPrimarySurface(minHit.getSurface());
+
+			if (minHit == null){
+				Ops.fma(colorVec, weight, compiled.backgroundColor);
+				continue;
+			}
 
-		// Calculates the intersections of the current intersection point
-		// with the different light sources. This is done by emitting
-		// rays from the current point to the light sources.
-		for (Light light : this.lightSources) {
-			Vec colorBySource = this.calcColorByLightSource(ray, minHit, light);
-			colorVec = colorVec.add(colorBySource);
-		}
+			// Defines the ambient reflections of the surface within the scene.
+			int material = compiled.material(minHit);
+			Vec local = context.local().set(materials[material + CompiledScene.KA] * ambient.x,
+					materials[material + CompiledScene.KA + 1] * ambient.y,
+					materials[material + CompiledScene.KA + 2] * ambient.z);
+
+			// Calculates the intersections of the current intersection point
+			// with the different light sources. This is done by emitting
+			// rays from the current point to the light sources.
+			Point hitPoint = ray.getHittingPoint(minHit);
+			for (int light = 0; light < compiled.lights.size(); ++light) {
+				this.addColorByLightSource(local, ray, minHit, hitPoint, compiled, material, light, context);
+			}
+			Ops.fma(colorVec, weight, local);
 
-		if (this.renderReflections) {
-			colorVec = colorVec.add(this.calcReflections(minHit, ray, recursionLevel));
+			if (recursionLevel + 1 < context.maxRecursionLevel()) {
+				this.addSecondaryRays(minHit, hitPoint, ray, materials, material, recursionLevel, weight, context);
+			}
 		}
 
 		return colorVec;
 	}
 
 	/**
-	 * Defines the recursive calculations for tracing reflections.
-	 * Using the "Law of Reflection", we create the reflected ray from
-	 * the given hit point with a surface to further color the digested pixel.
+	 * Defines the calculations for tracing reflections and refractions.
+	 * Using the "Law of Reflection" and Snell's law, we create the reflected
+	 * and the refracted rays from the given hit point with a surface and push
+	 * them onto the rays that are still to be traced, unless they are too weak
+	 * to change the pixel. On total internal reflection, the light that would
+	 * have been refracted is reflected as well.
 	 * @param hit - given hit
+	 * @param hitPoint - the point of the hit
 	 * @param ray - given ray
-	 * @param recLevel - recursive calls limit
-	 * @return a color vector.
+	 * @param materials - the material table of the compiled scene
+	 * @param material - the offset of the hit surface's material in the table
+	 * @param recLevel - the recursion level of the given ray
+	 * @param weight - the weight of the given ray
+	 * @param context - the state of the render thread, holding the pending rays
 	 */
-	private Vec calcReflections(Hit hit, Ray ray, int recLevel) {
-		Vec R = Ops.reflect(ray.direction(), hit.getNormalToSurface()); // reflection ray
-		Vec w = new Vec(hit.getSurface().reflectionIntensity()); // reflection intensity weight
-
-		Point sourcePoint = ray.getHittingPoint(hit);
-		Vec color = this.calcColor(new Ray(sourcePoint, R), recLevel + 1);
-		return color.mult(w); // Apply the surface weight
-	}
+	private void addSecondaryRays(Hit hit, Point hitPoint, Ray ray, double[] materials, int material, int recLevel,
+			double weight, TraceContext context) {
+		double reflectionWeight = this.renderReflections
+				? weight * materials[material + CompiledScene.REFLECTION_INTENSITY] : 0;
+		double refractionWeight = 0;
+		Vec T = null; // refraction ray
+		if (this.renderRefarctions && materials[material + CompiledScene.TRANSPARENT] != 0) {
+			// The indices of refraction of the medium the ray leaves and of the one it enters.
+			double refractionIndex = materials[material + CompiledScene.REFRACTION_INDEX];
+			double n1 = hit.isWithinTheSurface() ? refractionIndex : 1;
+			double n2 = hit.isWithinTheSurface() ? 1 : refractionIndex;
+			double refractionIntensity = materials[material + CompiledScene.REFRACTION_INTENSITY];
+			T = Ops.refract(ray.direction(), hit.getNormalToSurface(), n1, n2);
+			if (T == null)
+				reflectionWeight += weight * refractionIntensity; // total internal reflection
+			else
+				refractionWeight = weight * refractionIntensity;
+		}
 
-	/**
-	 * Iterates through all surfaces in the Scene, and returns the
-	 * nearest intersection with a given ray.
-	 * @param ray - given ray
-	 * @return the nearest hit
-	 */
-	private Hit findMinIntersection(Ray ray){
-		Hit minIntersection = null;
-		for (Surface surface : this.surfaces){
-			Hit tempHit = surface.intersect(ray);
-			if (minIntersection == null || (tempHit != null && tempHit.compareTo(minIntersection) < 0 )){
-				minIntersection = tempHit;
+		boolean reflect = reflectionWeight > this.minContribution;
+		boolean refract = refractionWeight > this.minContribution;
+		if (reflect && refract) {
+			if (!context.spendSecondaryRays(2)) {
+				// Out of budget, follow only the dominant branch.
+				reflect = reflectionWeight >= refractionWeight;
+				refract = !reflect;
 			}
+		} else if (reflect || refract) {
+			context.spendSecondaryRays(1);
+		}
+
+		// The dominant branch is pushed last, so it is traced first.
+		if (reflect && refract && reflectionWeight >= refractionWeight) {
+			pushRefraction(hitPoint, T, recLevel, refractionWeight, context);
+			pushReflection(hit, hitPoint, ray, recLevel, reflectionWeight, context);
+			return;
 		}
-		return minIntersection;
+		if (reflect)
+			pushReflection(hit, hitPoint, ray, recLevel, reflectionWeight, context);
+		if (refract)
+			pushRefraction(hitPoint, T, recLevel, refractionWeight, context);
+	}
+
+	private static void pushReflection(Hit hit, Point hitPoint, Ray ray, int recLevel, double weight,
+			TraceContext context) {
+		Vec R = Ops.reflect(ray.direction(), hit.getNormalToSurface()); // reflection ray
+		context.reflectionRay();
+		context.push(new Ray(hitPoint, R), recLevel + 1, weight);
+	}
+
+	private static void pushRefraction(Point hitPoint, Vec T, int recLevel, double weight, TraceContext context) {
+		context.refractionRay();
+		context.push(new Ray(hitPoint, T), recLevel + 1, weight);
 	}
 
 	/**
 	 * Calculate the diffuse and specular attributes
 	 * for the given intersection with the given light source.
+	 * @param colorVec - the color to add the attributes to
 	 * @param rayFromCamera - the ray from the camera's view
 	 * @param hit - the intersection hit
-	 * @param light - the light source
-	 * @return a color vector.
+	 * @param hitPoint - the point of the hit
+	 * @param compiled - the compiled scene
+	 * @param material - the offset of the hit surface's material in the material table
+	 * @param light - the index of the light source in the scene
+	 * @param context - the state of the render thread
 	 */
-	private Vec calcColorByLightSource(Ray rayFromCamera, Hit hit, Light light) {
-		Vec color = new Vec(0);
-		Point hitPoint = rayFromCamera.getHittingPoint(hit);
-		Ray rayToLight = light.rayToLight(hitPoint);
-
-		if (!isLightOccluded(light, rayToLight)) {
+	private void addColorByLightSource(Vec colorVec, Ray rayFromCamera, Hit hit, Point hitPoint,
+			CompiledScene compiled, int material, int light, TraceContext context) {
+		LightTable lights = compiled.lights;
+		Ray rayToLight = lights.rayToLight(light, hitPoint);
+		Vec intensity = lights.intensityInto(light, context.intensity(), hitPoint, rayToLight);
+
+		// Points the light doesn't reach (e.g. outside a spotlight's cone) need no shadow ray.
+		boolean isLit = intensity.x != 0 | intensity.y != 0 | intensity.z != 0;
+		if (isLit && !isLightOccluded(compiled, light, rayToLight, context)) {
 			// Calculate the Diffuse ans Specular color attributes
-			Vec diffuseCol = this.getDiffuse(hit, rayToLight);
-			Vec specularCol = this.getSpecular(hit, rayToLight, rayFromCamera);
+			double[] materials = compiled.materials;
+			double diffuse = getDiffuse(hit, rayToLight);
+			double specular = getSpecular(hit, materials[material + CompiledScene.SHININESS], rayToLight,
+					rayFromCamera, context.shading());
+			int kd = material + CompiledScene.KD, ks = material + CompiledScene.KS;
+			double r = diffuse * materials[kd] + specular * materials[ks];
+			double g = diffuse * materials[kd + 1] + specular * materials[ks + 1];
+			double b = diffuse * materials[kd + 2] + specular * materials[ks + 2];
 
 			// Apply the light intensity weight to the physics additions.
-			Vec intensity = light.intensity(hitPoint, rayToLight);
-			color = color.add(diffuseCol.add(specularCol).mult(intensity));
+			colorVec.set(colorVec.x + r * intensity.x, colorVec.y + g * intensity.y, colorVec.z + b * intensity.z);
 		}
-
-		return color;
 	}
 
 	/**
 	 * Given a ray and a light source, determine if some surface
 	 * in the scene blocks the ray to the light.
-	 * @param light - given light
+	 * Neighbouring points are usually shadowed by the same surface, so the
+	 * surface that last blocked the light is tested before the full search.
+	 * @param compiled - the compiled scene
+	 * @param lightIndex - the index of the light in the scene
 	 * @param ray - given ray to light
+	 * @param context - the state of the render thread, holding the last occluders
 	 * @return boolean that answers the criteria
 	 */
-	private boolean isLightOccluded(Light light, Ray ray){
-		for (Surface surface : this.surfaces) {
-			if (light.isOccludedBy(surface, ray)){
+	private boolean isLightOccluded(CompiledScene compiled, int lightIndex, Ray ray, TraceContext context){
+		context.shadowRay();
+		double maxDistance = compiled.lights.distanceTo(lightIndex, ray.source());
+		Surface lastOccluder = context.lastOccluder(lightIndex);
+		if (lastOccluder != null) {
+			context.intersectionTests(1);
+			if (lastOccluder.intersects(ray, maxDistance)) {
+				context.shadowCacheHit();
 				return true;
 			}
+			context.shadowCacheMiss();
 		}
-		return false;
+
+		Surface occluder = compiled.accelerator.findOccluder(ray, maxDistance, context);
+		if (occluder != null)
+			context.setLastOccluder(lightIndex, occluder);
+		return occluder != null;
 	}
 
 	/**
-	 * Calculates the diffuse color of a hit point with the ray
-	 * to a light source.
+	 * Calculates the diffuse factor of a hit point with the ray
+	 * to a light source. The diffuse color is Kd times the factor.
 	 * @param hit - given hit
 	 * @param rayToLight - given ray
-	 * @return a color vector.
+	 * @return the diffuse factor.
 	 */
-	private Vec getDiffuse(Hit hit, Ray rayToLight) {
+	static double getDiffuse(Hit hit, Ray rayToLight) {
 		Vec normal = hit.getNormalToSurface();
 		Vec L = rayToLight.direction();
-		Vec Kd = hit.getSurface().Kd();
 
 		double dot = normal.dot(L);
-		return (dot < 0) ? new Vec() : Kd.mult(dot);
+		return (dot < 0) ? 0 : dot;
 	}
 
 	/**
-	 * Calculates the specular color of a hit point as seen from the
+	 * Calculates the specular factor of a hit point as seen from the
 	 * camera point of view with a reflected light, using shininess modeling
 	 * to calculate highlights on the surface at the intersection point.
+	 * The specular color is Ks times the factor.
 	 * @param hit - given hit
+	 * @param n - the shininess of the hit surface
 	 * @param rayToLight - given ray to the light
 	 * @param rayFromCamera - given ray from the camera
-	 * @return a color vector.
+	 * @param scratch - a vector to hold the reflected light direction
+	 * @return the specular factor.
 	 */
-	private Vec getSpecular(Hit hit, Ray rayToLight, Ray rayFromCamera) {
-		Surface surface =  hit.getSurface();
-		Vec Ks = surface.Ks();
-		int n = surface.shininess();
-
+	static double getSpecular(Hit hit, double n, Ray rayToLight, Ray rayFromCamera, Vec scratch) {
 		Vec V = rayFromCamera.direction();
-		Vec Lc = Ops.reflect(rayToLight.direction().neg(), hit.getNormalToSurface());
+		Vec Lc = Ops.negInto(scratch, rayToLight.direction());
+		Ops.reflectInto(Lc, Lc, hit.getNormalToSurface());
 
-		double dot = Lc.dot(V.neg());
-		return (dot < 0) ? new Vec() : Ks.mult(Math.pow(dot, n));
+		double dot = -Lc.dot(V); // == Lc.dot(V.neg())
+		return (dot < 0) ? 0 : Math.pow(dot, n);
 	}
 }
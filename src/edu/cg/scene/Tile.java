@@ -0,0 +1,65 @@
+package edu.cg.scene;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A rectangular block of pixels that is traced as a single unit of work.
+ */
+public class Tile {
+	private final int x, y;
+	private final int width, height;
+
+	public Tile(int x, int y, int width, int height) {
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+	}
+
+	public int x() {
+		return x;
+	}
+
+	public int y() {
+		return y;
+	}
+
+	public int width() {
+		return width;
+	}
+
+	public int height() {
+		return height;
+	}
+
+	public int size() {
+		return width * height;
+	}
+
+	/**
+	 * Splits an image into tiles of (at most) tileSize X tileSize pixels, in
+	 * row-major order. Tiles at the right and bottom edges are cropped to the
+	 * image bounds.
+	 *
+	 * @param imgWidth  - the number of pixels in the x direction.
+	 * @param imgHeight - the number of pixels in the y direction.
+	 * @param tileSize  - the edge length of a tile.
+	 * @return the list of tiles covering the image.
+	 */
+	public static List<Tile> split(int imgWidth, int imgHeight, int tileSize) {
+		if (tileSize <= 0)
+			throw new IllegalArgumentException("Tile size must be positive");
+
+		List<Tile> tiles = new ArrayList<>();
+		for (int y = 0; y < imgHeight; y += tileSize)
+			for (int x = 0; x < imgWidth; x += tileSize)
+				tiles.add(new Tile(x, y, Math.min(tileSize, imgWidth - x), Math.min(tileSize, imgHeight - y)));
+		return tiles;
+	}
+
+	@Override
+	public String toString() {
+		return "[" + x + ", " + y + ", " + width + "x" + height + "]";
+	}
+}
@@ -0,0 +1,139 @@
+package edu.cg.scene;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The time and the rays that a render spent on every tile of its image,
+ * summed over all the passes. The costs are kept on a grid of cells of the
+ * scene's tile size. A fork/join render traces regions that don't align with
+ * the grid, so the cost of a region is shared among the cells it overlaps,
+ * by the area of the overlap.
+ */
+public class TileCosts {
+	private final int imgWidth, imgHeight;
+	private final int cellSize;
+	private final int columns, rows;
+	private final AtomicLongArray nanos;
+	private final AtomicLongArray rays;
+
+	TileCosts(int imgWidth, int imgHeight, int cellSize) {
+		if (cellSize <= 0)
+			throw new IllegalArgumentException("Tile size must be positive");
+
+		this.imgWidth = imgWidth;
+		this.imgHeight = imgHeight;
+		this.cellSize = cellSize;
+		this.columns = (imgWidth + cellSize - 1) / cellSize;
+		this.rows = (imgHeight + cellSize - 1) / cellSize;
+		this.nanos = new AtomicLongArray(columns * rows);
+		this.rays = new AtomicLongArray(columns * rows);
+	}
+
+	/**
+	 * Adds the cost of a traced tile to the cells it overlaps.
+	 * @param tile - the traced tile
+	 * @param tileNanos - the time it took to trace the tile
+	 * @param tileRays - the number of rays of all the types the tile traced
+	 */
+	void add(Tile tile, long tileNanos, long tileRays) {
+		double area = tile.size();
+		for (int row = tile.y() / cellSize; row * cellSize < tile.y() + tile.height(); ++row) {
+			int overlapHeight = Math.min(tile.y() + tile.height(), (row + 1) * cellSize) - Math.max(tile.y(), row * cellSize);
+			for (int column = tile.x() / cellSize; column * cellSize < tile.x() + tile.width(); ++column) {
+				int overlapWidth = Math.min(tile.x() + tile.width(), (column + 1) * cellSize)
+						- Math.max(tile.x(), column * cellSize);
+				double share = overlapWidth * overlapHeight / area;
+				nanos.addAndGet(row * columns + column, Math.round(tileNanos * share));
+				rays.addAndGet(row * columns + column, Math.round(tileRays * share));
+			}
+		}
+	}
+
+	/**
+	 * Returns the edge length of a cell, in pixels. Cells at the right and
+	 * bottom edges are cropped to the image bounds.
+	 */
+	public int cellSize() {
+		return cellSize;
+	}
+
+	public int columns() {
+		return columns;
+	}
+
+	public int rows() {
+		return rows;
+	}
+
+	/**
+	 * Returns the time that was spent on the given cell, in nanoseconds.
+	 */
+	public long nanos(int column, int row) {
+		return nanos.get(row * columns + column);
+	}
+
+	/**
+	 * Returns the number of rays of all the types that were traced for the given cell.
+	 */
+	public long rays(int column, int row) {
+		return rays.get(row * columns + column);
+	}
+
+	/**
+	 * Returns the time that was spent on the most expensive cell, in nanoseconds.
+	 */
+	public long maxNanos() {
+		long max = 0;
+		for (int i = 0; i < nanos.length(); ++i)
+			max = Math.max(max, nanos.get(i));
+		return max;
+	}
+
+	/**
+	 * Draws the costs as a heatmap of the size of the rendered image. Every cell
+	 * is filled with a color between black (no time) and white (the most
+	 * expensive cell), through red and yellow.
+	 * @return the heatmap.
+	 */
+	public BufferedImage toImage() {
+		BufferedImage img = new BufferedImage(imgWidth, imgHeight, BufferedImage.TYPE_INT_RGB);
+		double max = Math.max(1, maxNanos());
+		for (int row = 0; row < rows; ++row) {
+			for (int column = 0; column < columns; ++column) {
+				double t = nanos(column, row) / max;
+				int rgb = (channel(3 * t) << 16) | (channel(3 * t - 1) << 8) | channel(3 * t - 2);
+				for (int y = row * cellSize; y < Math.min(imgHeight, (row + 1) * cellSize); ++y)
+					for (int x = column * cellSize; x < Math.min(imgWidth, (column + 1) * cellSize); ++x)
+						img.setRGB(x, y, rgb);
+			}
+		}
+		return img;
+	}
+
+	private static int channel(double value) {
+		return (int) Math.round(255 * Math.max(0, Math.min(1, value)));
+	}
+
+	/**
+	 * Writes the costs as CSV, one line per cell in row-major order, under the
+	 * header "x,y,width,height,nanos,rays".
+	 * @param out - the destination of the CSV
+	 */
+	public void writeCsv(Writer out) throws IOException {
+		out.write("x,y,width,height,nanos,rays");
+		out.write(System.lineSeparator());
+		for (int row = 0; row < rows; ++row) {
+			for (int column = 0; column < columns; ++column) {
+				int x = column * cellSize;
+				int y = row * cellSize;
+				out.write(x + "," + y + "," + Math.min(cellSize, imgWidth - x) + "," + Math.min(cellSize, imgHeight - y)
+						+ "," + nanos(column, row) + "," + rays(column, row));
+				out.write(System.lineSeparator());
+			}
+		}
+		out.flush();
+	}
+}
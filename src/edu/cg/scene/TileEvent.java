@@ -0,0 +1,42 @@
+package edu.cg.scene;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A flight recorder event of a single tile of a render pass.
+ */
+@Name("edu.cg.Tile")
+@Label("Tile")
+@Category("Ray Tracer")
+@Description("A tile of a render pass")
+class TileEvent extends Event {
+	@Label("Scene")
+	String sceneName;
+
+	@Label("X")
+	int x;
+
+	@Label("Y")
+	int y;
+
+	@Label("Width")
+	int width;
+
+	@Label("Height")
+	int height;
+
+	@Label("Step")
+	@Description("The block size of the pass")
+	int step;
+
+	@Label("Primary Rays")
+	long primaryRays;
+
+	@Label("Rays")
+	@Description("The rays of all the types")
+	long rays;
+}
@@ -0,0 +1,278 @@
+package edu.cg.scene;
+
+import java.util.SplittableRandom;
+
+import edu.cg.algebra.Ray;
+import edu.cg.algebra.Vec;
+import edu.cg.scene.objects.Surface;
+
+/**
+ * The state a render thread carries while it traces the pixels of one tile.
+ * It is owned by a single thread, so nothing in it is synchronized.
+ */
+class TraceContext {
+	private final CompiledScene scene;
+	private final int maxRecursionLevel;
+
+	// The surface that last blocked each light, by the light's index in the scene.
+	// It is shared by the contexts of the same thread within a render.
+	private final Surface[] lastOccluders;
+	private long shadowRays = 0;
+	private long shadowCacheHits = 0;
+	private long shadowCacheMisses = 0;
+
+	// The counters of the rays that were traced and the ray-surface tests they took.
+	private long primaryRays = 0;
+	private long reflectionRays = 0;
+	private long refractionRays = 0;
+	private long intersectionTests = 0;
+
+	private final int[] traversalStack = new int[BVH.STACK_SIZE];
+	private final double[] traversalEntries = new double[BVH.STACK_SIZE];
+
+	// The rays of the current pixel's ray tree that are still to be traced,
+	// with the recursion level and the weight of each of them.
+	private final Ray[] pendingRays;
+	private final int[] pendingLevels;
+	private final double[] pendingWeights;
+	private int pending = 0;
+	private int secondaryRayBudget = 0; // the secondary rays the current pixel may still add
+	private Surface primarySurface = null; // the surface hit by the last primary ray
+	private final SplittableRandom random; // owned by this thread only, so it is never contended
+
+	// Scratch vectors of the shading code, so that shading a hit allocates nothing.
+	private final Vec color = new Vec(); // the color of the pixel
+	private final Vec local = new Vec(); // the color of a single hit, without its secondary rays
+	private final Vec intensity = new Vec();
+	private final Vec shading = new Vec();
+
+	/**
+	 * @param scene - the compiled scene of the render
+	 * @param lastOccluders - the occluder cache of the calling thread, one entry per light
+	 * @param maxRecursionLevel - the recursion limit of the tile
+	 * @param randomSeed - the seed of the random sample positions of the tile
+	 */
+	TraceContext(CompiledScene scene, Surface[] lastOccluders, int maxRecursionLevel, long randomSeed) {
+		this.scene = scene;
+		this.random = new SplittableRandom(randomSeed);
+		this.lastOccluders = lastOccluders;
+		this.maxRecursionLevel = maxRecursionLevel;
+		// Every traced ray adds at most two rays of the next level, and they are
+		// traced depth first, so at most one ray per level is pending.
+		int capacity = Math.max(1, maxRecursionLevel + 1);
+		this.pendingRays = new Ray[capacity];
+		this.pendingLevels = new int[capacity];
+		this.pendingWeights = new double[capacity];
+	}
+
+	/**
+	 * Returns the compiled scene of the render, which the tracer reads instead of the scene itself.
+	 */
+	CompiledScene scene() {
+		return scene;
+	}
+
+	/**
+	 * Returns the recursion limit of the tile, at most the scene's maxRecursionLevel.
+	 */
+	int maxRecursionLevel() {
+		return maxRecursionLevel;
+	}
+
+	/**
+	 * Returns the generator of the random sample positions of this thread.
+	 */
+	SplittableRandom random() {
+		return random;
+	}
+
+	/**
+	 * Returns the vector that holds the color of the pixel being traced.
+	 */
+	Vec color() {
+		return color;
+	}
+
+	/**
+	 * Returns the vector that holds the color of a single hit, without its secondary rays.
+	 */
+	Vec local() {
+		return local;
+	}
+
+	/**
+	 * Adds a ray to the rays of the ray tree that are still to be traced.
+	 * @param ray - the ray
+	 * @param recursionLevel - the recursion level of the ray, 0 for a primary ray
+	 * @param weight - the fraction of the ray's color that reaches the pixel
+	 */
+	void push(Ray ray, int recursionLevel, double weight) {
+		pendingRays[pending] = ray;
+		pendingLevels[pending] = recursionLevel;
+		pendingWeights[pending] = weight;
+		++pending;
+	}
+
+	/**
+	 * Sets the number of secondary rays the next pixel may trace with all of its branches.
+	 */
+	void resetSecondaryRayBudget(int budget) {
+		secondaryRayBudget = budget;
+	}
+
+	/**
+	 * Takes secondary rays from the budget of the current pixel.
+	 * @param count - the number of rays
+	 * @return true if the budget had enough rays left, false otherwise, in
+	 *         which case the budget is emptied.
+	 */
+	boolean spendSecondaryRays(int count) {
+		boolean enough = secondaryRayBudget >= count;
+		secondaryRayBudget = enough ? secondaryRayBudget - count : 0;
+		return enough;
+	}
+
+	boolean hasPending() {
+		return pending > 0;
+	}
+
+	/**
+	 * Removes the last pushed ray. Its ray, level and weight remain readable by
+	 * the returned slot until the next push.
+	 * @return the slot of the removed ray.
+	 */
+	int pop() {
+		return --pending;
+	}
+
+	Ray pendingRay(int slot) {
+		return pendingRays[slot];
+	}
+
+	int pendingLevel(int slot) {
+		return pendingLevels[slot];
+	}
+
+	double pendingWeight(int slot) {
+		return pendingWeights[slot];
+	}
+
+	/**
+	 * Returns the vector that holds the intensity of the light being shaded.
+	 */
+	Vec intensity() {
+		return intensity;
+	}
+
+	/**
+	 * Returns a vector for the intermediate values of the shading of a single light.
+	 */
+	Vec shading() {
+		return shading;
+	}
+
+	/**
+	 * Returns the stack of the BVH traversals of this thread.
+	 */
+	int[] traversalStack() {
+		return traversalStack;
+	}
+
+	/**
+	 * Returns the distances that go with the nodes of the traversal stack.
+	 */
+	double[] traversalEntries() {
+		return traversalEntries;
+	}
+
+	void primaryRay() {
+		++primaryRays;
+	}
+
+	void reflectionRay() {
+		++reflectionRays;
+	}
+
+	void refractionRay() {
+		++refractionRays;
+	}
+
+	void intersectionTests(int count) {
+		intersectionTests += count;
+	}
+
+	long primaryRays() {
+		return primaryRays;
+	}
+
+	long reflectionRays() {
+		return reflectionRays;
+	}
+
+	long refractionRays() {
+		return refractionRays;
+	}
+
+	long shadowRays() {
+		return shadowRays;
+	}
+
+	/**
+	 * Returns the number of rays of all the types.
+	 */
+	long rays() {
+		return primaryRays + reflectionRays + refractionRays + shadowRays();
+	}
+
+	long intersectionTests() {
+		return intersectionTests;
+	}
+
+	/**
+	 * Returns the surface that was hit by the last primary ray, or null if it
+	 * hit nothing.
+	 */
+	Surface primarySurface() {
+		return primarySurface;
+	}
+
+	void setPrimarySurface(Surface surface) {
+		primarySurface = surface;
+	}
+
+	Surface lastOccluder(int light) {
+		return lastOccluders[light];
+	}
+
+	void setLastOccluder(int light, Surface occluder) {
+		lastOccluders[light] = occluder;
+	}
+
+	void shadowRay() {
+		++shadowRays;
+	}
+
+	void shadowCacheHit() {
+		++shadowCacheHits;
+	}
+
+	void shadowCacheMiss() {
+		++shadowCacheMisses;
+	}
+
+	/**
+	 * Returns the number of shadow rays that were blocked by the cached occluder.
+	 */
+	long shadowCacheHits() {
+		return shadowCacheHits;
+	}
+
+	/**
+	 * Returns the number of shadow rays whose cached occluder was tested and
+	 * didn't block them. Shadow rays without a cached occluder are neither hits
+	 * nor misses.
+	 */
+	long shadowCacheMisses() {
+		return shadowCacheMisses;
+	}
+}
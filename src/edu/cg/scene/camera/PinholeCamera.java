@@ -1,5 +1,7 @@
 package edu.cg.scene.camera;
 
+import java.util.SplittableRandom;
+
 import edu.cg.UnimplementedMethodException;
 import edu.cg.algebra.Point;
 import edu.cg.algebra.Vec;
@@ -41,6 +43,23 @@ public class PinholeCamera {
 		this.plainCenterPoint = cameraPosition.add(towardsVec.normalize().mult(distanceToPlain));
 	}
 
+	/**
+	 * Creates a copy of the given camera, including its resolution.
+	 * 
+	 * @param other - the camera to copy.
+	 */
+	public PinholeCamera(PinholeCamera other) {
+		this.cameraPosition = other.cameraPosition;
+		this.distanceToPlain = other.distanceToPlain;
+		this.upVec = other.upVec;
+		this.rightVec = other.rightVec;
+		this.towardsVec = other.towardsVec;
+		this.plainWidth = other.plainWidth;
+		this.plainCenterPoint = other.plainCenterPoint;
+		this.resolutionX = other.resolutionX;
+		this.resolutionY = other.resolutionY;
+	}
+
 	/**
 	 * Initializes the resolution and width of the image.
 	 * 
@@ -63,6 +82,19 @@ public class PinholeCamera {
 	 * @return the middle point of the pixel (x,y) in the model coordinates.
 	 */
 	public Point transform(int x, int y) {
+		return transform((double) x, (double) y);
+	}
+
+	/**
+	 * Transforms from continuous pixel coordinates to model coordinates, so that
+	 * transform(x, y) of integer coordinates is the point of the pixel (x,y).
+	 * Used for sampling the area of a pixel.
+	 * 
+	 * @param x - the position in the x direction, in pixels.
+	 * @param y - the position in the y direction, in pixels.
+	 * @return the point (x,y) in the model coordinates.
+	 */
+	public Point transform(double x, double y) {
 		double pixelWidth = this.plainWidth / this.resolutionX;
 
 		double rightFactor = pixelWidth * (x - (this.resolutionX / 2.0));
@@ -73,6 +105,43 @@ public class PinholeCamera {
 				.add(rightVec.mult(rightFactor));
 	}
 
+	/**
+	 * Creates a generator of the primary rays of a range of columns, for the
+	 * current resolution.
+	 * 
+	 * @param x     - the index of the first column.
+	 * @param width - the number of columns.
+	 * @return the generator.
+	 */
+	public PrimaryRays primaryRays(int x, int width) {
+		return new PrimaryRays(cameraPosition, plainCenterPoint, upVec, rightVec, this.plainWidth / this.resolutionX,
+				resolutionX, resolutionY, x, width);
+	}
+
+	/**
+	 * Transforms a sample of a pixel to model coordinates. The area of the
+	 * pixel is split into sampleCount strata, on a grid of ceil(sqrt(sampleCount))
+	 * columns; the strata of a partial last row are widened to cover the row.
+	 * 
+	 * @param x           - the pixel index in the x direction.
+	 * @param y           - the pixel index in the y direction.
+	 * @param sample      - the index of the sample, in [0, sampleCount).
+	 * @param sampleCount - the number of samples of the pixel.
+	 * @param random      - the generator of the position within the stratum, or
+	 *                    null to sample the center of the stratum.
+	 * @return the sample point in the model coordinates.
+	 */
+	public Point transformSample(int x, int y, int sample, int sampleCount, SplittableRandom random) {
+		int columns = (int) Math.ceil(Math.sqrt(sampleCount));
+		int rows = (sampleCount + columns - 1) / columns;
+		int row = sample / columns;
+		int rowLength = row == rows - 1 ? sampleCount - row * columns : columns;
+
+		double u = (sample % columns + (random == null ? 0.5 : random.nextDouble())) / rowLength;
+		double v = (row + (random == null ? 0.5 : random.nextDouble())) / rows;
+		return transform(x + u - 0.5, y + v - 0.5);
+	}
+
 	/**
 	 * Returns the camera position
 	 * 
@@ -0,0 +1,109 @@
+package edu.cg.scene.camera;
+
+import edu.cg.algebra.Point;
+import edu.cg.algebra.Ray;
+import edu.cg.algebra.Vec;
+
+/**
+ * Generates the primary rays of a range of columns of the image (typically the
+ * columns of a tile) one row at a time. The right offsets of the columns are
+ * computed once, and every row adds its up offset to them, so the directions
+ * of a row are written into primitive arrays without allocating. The
+ * directions are the same, to the bit, as the directions of the rays from the
+ * camera position through transform(x, y). The rays themselves are handed out
+ * through a single reused ray, so tracing a pixel allocates no ray either.
+ */
+public class PrimaryRays {
+	private final Point origin;
+	private final int firstColumn;
+	private final double pixelWidth;
+	private final double halfResolutionY;
+	private final Point plainCenterPoint;
+	private final Vec upVec;
+
+	// The right offset of every column from the center of the plain.
+	private final double[] rightX, rightY, rightZ;
+	// The normalized directions of the rays of the current row.
+	private final double[] directionX, directionY, directionZ;
+	// The ray that is returned for every pixel, pointing along direction.
+	private final Vec direction = new Vec();
+	private final Ray ray;
+
+	PrimaryRays(Point cameraPosition, Point plainCenterPoint, Vec upVec, Vec rightVec, double pixelWidth,
+			int resolutionX, int resolutionY, int firstColumn, int columns) {
+		this.origin = new Point(cameraPosition.x, cameraPosition.y, cameraPosition.z);
+		this.firstColumn = firstColumn;
+		this.pixelWidth = pixelWidth;
+		this.halfResolutionY = resolutionY / 2.0;
+		this.plainCenterPoint = plainCenterPoint;
+		this.upVec = upVec;
+
+		this.rightX = new double[columns];
+		this.rightY = new double[columns];
+		this.rightZ = new double[columns];
+		for (int i = 0; i < columns; ++i) {
+			double rightFactor = pixelWidth * ((firstColumn + i) - (resolutionX / 2.0));
+			rightX[i] = rightFactor * rightVec.x;
+			rightY[i] = rightFactor * rightVec.y;
+			rightZ[i] = rightFactor * rightVec.z;
+		}
+
+		this.directionX = new double[columns];
+		this.directionY = new double[columns];
+		this.directionZ = new double[columns];
+		this.ray = Ray.ofNormalized(origin, direction);
+	}
+
+	/**
+	 * Calculates the directions of the rays of every step-th column of a row.
+	 * 
+	 * @param y     - the pixel index in the y direction.
+	 * @param step  - the distance between the columns, 1 for every column.
+	 * @param first - the first column, relative to the first column of the generator.
+	 */
+	public void computeRow(int y, int step, int first) {
+		double upFactor = pixelWidth * (halfResolutionY - y);
+		double rowX = plainCenterPoint.x + upFactor * upVec.x;
+		double rowY = plainCenterPoint.y + upFactor * upVec.y;
+		double rowZ = plainCenterPoint.z + upFactor * upVec.z;
+
+		for (int i = first; i < rightX.length; i += step) {
+			double dx = (rowX + rightX[i]) - origin.x;
+			double dy = (rowY + rightY[i]) - origin.y;
+			double dz = (rowZ + rightZ[i]) - origin.z;
+			double a = 1.0 / Math.sqrt(dx * dx + dy * dy + dz * dz);
+			directionX[i] = a * dx;
+			directionY[i] = a * dy;
+			directionZ[i] = a * dz;
+		}
+	}
+
+	/**
+	 * Returns the ray of the given pixel of the last computed row. The same ray
+	 * is returned by every call, pointed at the requested pixel, so it is valid
+	 * only until the next call and must not be kept.
+	 * 
+	 * @param x - the pixel index in the x direction.
+	 */
+	public Ray ray(int x) {
+		int i = x - firstColumn;
+		direction.set(directionX[i], directionY[i], directionZ[i]);
+		return ray;
+	}
+
+	/**
+	 * Returns the normalized directions of the rays of the last computed row,
+	 * indexed by the column from the first column of the generator.
+	 */
+	public double[] directionX() {
+		return directionX;
+	}
+
+	public double[] directionY() {
+		return directionY;
+	}
+
+	public double[] directionZ() {
+		return directionZ;
+	}
+}
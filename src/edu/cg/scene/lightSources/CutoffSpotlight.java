@@ -54,18 +54,18 @@ public class CutoffSpotlight extends PointLight {
 	}
 
 	@Override
-	public Vec intensity(Point hittingPoint, Ray rayToLight) {
+	public Vec intensityInto(Vec dst, Point hittingPoint, Ray rayToLight) {
 		// Extract the angle in degrees from the cos(gamma) value obtained
 		// from the dot product of the direction of the light with the given ray.
 		double cosineAngle = this.cosGamma(rayToLight);
 		double degAngle = Math.toDegrees(Math.acos(cosineAngle));
 
 		if (cosineAngle < Ops.epsilon || degAngle > this.cutoffAngle) {
-			return new Vec(0);
+			return dst.set(0, 0, 0);
 		}
 
-		Vec i = super.intensity(hittingPoint, rayToLight);
-		return i.mult(cosineAngle);
+		Vec i = super.intensityInto(dst, hittingPoint, rayToLight);
+		return Ops.scaleInto(i, cosineAngle, i);
 	}
 
 	/**
@@ -75,8 +75,15 @@ public class CutoffSpotlight extends PointLight {
 	 * @return the cosine of the angle.
 	 */
 	public double cosGamma(Ray rayToLight) {
-		Vec Vd = this.direction.normalize().neg();
-		Vec V = rayToLight.direction().normalize();
-		return V.dot(Vd);
+		// V.dot(Vd), with V = normalized ray direction and Vd = -(normalized spotlight direction).
+		Vec d = this.direction;
+		Vec v = rayToLight.direction();
+		double dScale = 1.0 / d.norm(), vScale = 1.0 / v.norm();
+		return (vScale * v.x) * -(dScale * d.x) + (vScale * v.y) * -(dScale * d.y) + (vScale * v.z) * -(dScale * d.z);
+	}
+
+	@Override
+	void compileInto(LightTable table, int index) {
+		table.setSpotlight(index, intensity, position, kq, kl, kc, direction, cutoffAngle);
 	}
 }
@@ -37,12 +37,22 @@ public class DirectionalLight extends Light {
 
 	@Override
 	public boolean isOccludedBy(Surface surface, Ray rayToLight) {
-		return surface.intersect(rayToLight) != null;
+		return surface.intersects(rayToLight, Double.POSITIVE_INFINITY);
 	}
 
 	@Override
-	public Vec intensity(Point hittingPoint, Ray rayToLight) {
-		return this.intensity;
+	public double distanceTo(Point fromPoint) {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public Vec intensityInto(Vec dst, Point hittingPoint, Ray rayToLight) {
+		return dst.set(this.intensity);
+	}
+
+	@Override
+	void compileInto(LightTable table, int index) {
+		table.setDirectional(index, intensity, direction);
 	}
 
 }
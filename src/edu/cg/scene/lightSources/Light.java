@@ -35,11 +35,41 @@ public abstract class Light {
 	 */
 	public abstract boolean isOccludedBy(Surface surface, Ray rayToLight);
 	
+	/**
+	 * Returns the distance from the given point to the light source. Surfaces that the ray to
+	 * the light hits beyond this distance don't occlude the light.
+	 * @param fromPoint - The given point
+	 * @return the distance to the light, or positive infinity if the light is infinitely far.
+	 */
+	public abstract double distanceTo(Point fromPoint);
+	
 	/**
 	 * Returns the light intensity at the specified point.
 	 * @param hittingPoint - The given point
 	 * @param rayToLight - A ray to the light source (this is relevant for point-light and spotlight)
 	 * @return A vector representing the light intensity (the r,g and b channels). 
 	 */
-	public abstract Vec intensity(Point hittingPoint, Ray rayToLight);
+	public Vec intensity(Point hittingPoint, Ray rayToLight) {
+		return intensityInto(new Vec(), hittingPoint, rayToLight);
+	}
+	
+	/**
+	 * Writes the light intensity at the specified point into the given vector,
+	 * without allocating a new one.
+	 * @param dst - The vector to write the intensity into
+	 * @param hittingPoint - The given point
+	 * @param rayToLight - A ray to the light source (this is relevant for point-light and spotlight)
+	 * @return dst
+	 */
+	public abstract Vec intensityInto(Vec dst, Point hittingPoint, Ray rayToLight);
+	
+	/**
+	 * Copies the constants of this light into the given table. Lights of other
+	 * packages can't override it, so the table calls them as they are.
+	 * @param table - the table that is being compiled
+	 * @param index - the index of this light in the table
+	 */
+	void compileInto(LightTable table, int index) {
+		table.setOther(index, this);
+	}
 }
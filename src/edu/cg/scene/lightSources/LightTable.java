@@ -0,0 +1,164 @@
+package edu.cg.scene.lightSources;
+
+import java.util.List;
+
+import edu.cg.algebra.Ops;
+import edu.cg.algebra.Point;
+import edu.cg.algebra.Ray;
+import edu.cg.algebra.Vec;
+
+/**
+ * The light sources of a scene, compiled for rendering. The constants of all
+ * the lights are copied into flat arrays, indexed by the light's position in
+ * the scene, and whatever doesn't depend on the hit point is computed once:
+ * the normalized direction towards a directional light, the normalized
+ * direction of a spotlight and the cosine of its cutoff angle.
+ *
+ * The table is a snapshot: later changes to the lights it was compiled from
+ * are not reflected in it. It gives the same results as the lights themselves.
+ * Lights of types that are defined outside this package aren't flattened; the
+ * table calls them instead.
+ */
+public final class LightTable {
+	private static final int DIRECTIONAL = 0;
+	private static final int POINT = 1;
+	private static final int SPOTLIGHT = 2;
+	private static final int OTHER = 3;
+
+	private final int[] types;
+	private final double[] intensities; // 3 per light
+	private final double[] positions; // 3 per light, for point lights and spotlights
+	private final double[] decayFactors; // kq, kl and kc per light, for point lights and spotlights
+	private final Vec[] towardsLight; // the direction of the rays to a directional light, shared by the rays
+	private final double[] spotDirections; // 3 per light, the negated and normalized spotlight direction
+	private final double[] cosCutoffs; // the cosine of a spotlight's cutoff angle
+	private final Light[] others; // the lights of the other types, which are called as they are
+
+	private LightTable(int n) {
+		types = new int[n];
+		intensities = new double[3 * n];
+		positions = new double[3 * n];
+		decayFactors = new double[3 * n];
+		towardsLight = new Vec[n];
+		spotDirections = new double[3 * n];
+		cosCutoffs = new double[n];
+		others = new Light[n];
+	}
+
+	/**
+	 * Compiles the given lights into a table.
+	 * @param lights - the light sources of the scene
+	 * @return the table, where every light keeps its index in the list.
+	 */
+	public static LightTable compile(List<Light> lights) {
+		LightTable table = new LightTable(lights.size());
+		int i = 0;
+		for (Light light : lights)
+			light.compileInto(table, i++);
+		return table;
+	}
+
+	// MARK: compilation, called by the lights
+
+	void setDirectional(int i, Vec intensity, Vec direction) {
+		types[i] = DIRECTIONAL;
+		setVec(intensities, i, intensity);
+		towardsLight[i] = direction.neg().normalize();
+	}
+
+	void setPoint(int i, Vec intensity, Point position, double kq, double kl, double kc) {
+		types[i] = POINT;
+		setVec(intensities, i, intensity);
+		positions[3 * i] = position.x;
+		positions[3 * i + 1] = position.y;
+		positions[3 * i + 2] = position.z;
+		decayFactors[3 * i] = kq;
+		decayFactors[3 * i + 1] = kl;
+		decayFactors[3 * i + 2] = kc;
+	}
+
+	void setSpotlight(int i, Vec intensity, Point position, double kq, double kl, double kc, Vec direction,
+			double cutoffAngle) {
+		setPoint(i, intensity, position, kq, kl, kc);
+		types[i] = SPOTLIGHT;
+		double scale = 1.0 / direction.norm();
+		spotDirections[3 * i] = -(scale * direction.x);
+		spotDirections[3 * i + 1] = -(scale * direction.y);
+		spotDirections[3 * i + 2] = -(scale * direction.z);
+		cosCutoffs[i] = Math.cos(Math.toRadians(cutoffAngle));
+	}
+
+	void setOther(int i, Light light) {
+		types[i] = OTHER;
+		others[i] = light;
+	}
+
+	private static void setVec(double[] array, int i, Vec v) {
+		array[3 * i] = v.x;
+		array[3 * i + 1] = v.y;
+		array[3 * i + 2] = v.z;
+	}
+
+	// MARK: queries
+
+	public int size() {
+		return types.length;
+	}
+
+	/**
+	 * Constructs a ray originated from the given point to a light.
+	 * @see Light#rayToLight(Point)
+	 */
+	public Ray rayToLight(int i, Point fromPoint) {
+		if (types[i] == DIRECTIONAL)
+			return Ray.ofNormalized(fromPoint, towardsLight[i]);
+		if (types[i] == OTHER)
+			return others[i].rayToLight(fromPoint);
+
+		Vec direction = new Vec(positions[3 * i] - fromPoint.x, positions[3 * i + 1] - fromPoint.y,
+				positions[3 * i + 2] - fromPoint.z);
+		return Ray.ofNormalized(fromPoint, Ops.normalizeInto(direction, direction));
+	}
+
+	/**
+	 * Returns the distance from the given point to a light.
+	 * @see Light#distanceTo(Point)
+	 */
+	public double distanceTo(int i, Point fromPoint) {
+		if (types[i] == DIRECTIONAL)
+			return Double.POSITIVE_INFINITY;
+		if (types[i] == OTHER)
+			return others[i].distanceTo(fromPoint);
+
+		double dx = fromPoint.x - positions[3 * i], dy = fromPoint.y - positions[3 * i + 1],
+				dz = fromPoint.z - positions[3 * i + 2];
+		return Math.sqrt(dx * dx + dy * dy + dz * dz);
+	}
+
+	/**
+	 * Writes the intensity of a light at the given point into the given vector.
+	 * @see Light#intensityInto(Vec, Point, Ray)
+	 */
+	public Vec intensityInto(int i, Vec dst, Point hittingPoint, Ray rayToLight) {
+		if (types[i] == DIRECTIONAL)
+			return dst.set(intensities[3 * i], intensities[3 * i + 1], intensities[3 * i + 2]);
+		if (types[i] == OTHER)
+			return others[i].intensityInto(dst, hittingPoint, rayToLight);
+
+		double cosineAngle = 1;
+		if (types[i] == SPOTLIGHT) {
+			Vec v = rayToLight.direction();
+			double vScale = 1.0 / v.norm();
+			cosineAngle = (vScale * v.x) * spotDirections[3 * i] + (vScale * v.y) * spotDirections[3 * i + 1]
+					+ (vScale * v.z) * spotDirections[3 * i + 2];
+			if (cosineAngle < Ops.epsilon || cosineAngle < cosCutoffs[i])
+				return dst.set(0, 0, 0);
+		}
+
+		double dist = distanceTo(i, hittingPoint);
+		double decay = decayFactors[3 * i + 2] + (decayFactors[3 * i + 1] + decayFactors[3 * i] * dist) * dist;
+		double scale = 1.0 / decay;
+		dst.set(scale * intensities[3 * i], scale * intensities[3 * i + 1], scale * intensities[3 * i + 2]);
+		return types[i] == SPOTLIGHT ? Ops.scaleInto(dst, cosineAngle, dst) : dst;
+	}
+}
@@ -1,6 +1,6 @@
 package edu.cg.scene.lightSources;
 
-import edu.cg.algebra.Hit;
+import edu.cg.algebra.Ops;
 import edu.cg.algebra.Point;
 import edu.cg.algebra.Ray;
 import edu.cg.algebra.Vec;
@@ -58,20 +58,24 @@ public class PointLight extends Light {
 
 	@Override
 	public boolean isOccludedBy(Surface surface, Ray rayToLight) {
-		Hit hit = surface.intersect(rayToLight);
-		if (hit == null)
-			return false;
+		return surface.intersects(rayToLight, distanceTo(rayToLight.source()));
+	}
 
-		Point source = rayToLight.source();
-		Point hittingPoint = rayToLight.getHittingPoint(hit);
-		return source.distSqr(position) > source.distSqr(hittingPoint);
+	@Override
+	public double distanceTo(Point fromPoint) {
+		return fromPoint.dist(position);
 	}
 
 	@Override
-	public Vec intensity(Point hittingPoint, Ray rayToLight) {
+	public Vec intensityInto(Vec dst, Point hittingPoint, Ray rayToLight) {
 		double dist = hittingPoint.dist(position);
 		double decay = kc + (kl + kq * dist) * dist;
-		return intensity.mult(1.0 / decay);
+		return Ops.scaleInto(dst, 1.0 / decay, intensity);
+	}
+
+	@Override
+	void compileInto(LightTable table, int index) {
+		table.setPoint(index, intensity, position, kq, kl, kc);
 	}
 
 }
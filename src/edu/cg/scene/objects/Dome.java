@@ -1,12 +1,17 @@
 package edu.cg.scene.objects;
 
-import edu.cg.UnimplementedMethodException;
+import edu.cg.algebra.AABB;
 import edu.cg.algebra.Hit;
+import edu.cg.algebra.Ops;
 import edu.cg.algebra.Point;
 import edu.cg.algebra.Ray;
 import edu.cg.algebra.Vec;
 
 public class Dome extends Shape {
+	// The cost of clipping the hits, relative to a sphere: testing the sphere
+	// hits against the plain and testing the plain hit against the radius.
+	private static final double CLIPPING_COST = 1.0;
+
 	private Sphere sphere;
 	private Plain plain;
 
@@ -26,9 +31,99 @@ public class Dome extends Shape {
 		return "Dome:" + endl + sphere + plain + endl;
 	}
 
+	/**
+	 * The dome spans the whole sphere along the axes that have a non-negative
+	 * component in the plain's normal, and is cut along the others. The rim of
+	 * the dome bounds the cut side, and the closing disk lies within the rim.
+	 */
+	@Override
+	public AABB bounds() {
+		Point center = sphere.center();
+		double radius = sphere.radius();
+		Vec n = plain.normal();
+		double[] c = center.asArray();
+		double[] normal = n.asArray();
+		double[] min = new double[3], max = new double[3];
+		for (int axis = 0; axis < 3; ++axis) {
+			double rim = radius * Math.sqrt(Math.max(0, 1 - normal[axis] * normal[axis]));
+			max[axis] = c[axis] + (normal[axis] >= 0 ? radius : rim);
+			min[axis] = c[axis] - (normal[axis] <= 0 ? radius : rim);
+		}
+		return new AABB(new Point(min[0], min[1], min[2]), new Point(max[0], max[1], max[2]));
+	}
+
+	/**
+	 * Returns the centroid of the solid half ball, 3r/8 from the center along the
+	 * plain's normal.
+	 */
+	@Override
+	public Point centroid() {
+		return sphere.center().add(3.0 * sphere.radius() / 8.0, plain.normal());
+	}
+
+	/**
+	 * A dome is intersected with both its sphere and its plain, and then clipped.
+	 */
+	@Override
+	public double intersectionCost() {
+		return sphere.intersectionCost() + plain.intersectionCost() + CLIPPING_COST;
+	}
+
+	/**
+	 * The dome is the part of the sphere that lies on the side the plain's
+	 * normal points to, closed by the disk the plain cuts out of the sphere.
+	 */
 	@Override
 	public Hit intersect(Ray ray) {
-		// TODO: implement this method (bonus only).
-		throw new UnimplementedMethodException("intersect(Ray)");
+		double t = intersectT(ray, Ops.epsilon, Ops.infinity);
+		return t == Double.POSITIVE_INFINITY ? null : hitAt(ray, t);
+	}
+
+	@Override
+	public double intersectT(Ray ray, double tMin, double tMax) {
+		Point center = sphere.center();
+		double radius = sphere.radius();
+
+		Point o = ray.source();
+		Vec d = ray.direction();
+		double ox = o.x - center.x, oy = o.y - center.y, oz = o.z - center.z;
+		double b = 2.0 * (d.x * ox + d.y * oy + d.z * oz);
+		double c = (ox * ox + oy * oy + oz * oz) - radius * radius;
+		double delta = b * b - 4.0 * c;
+		if (delta < 0)
+			return Double.POSITIVE_INFINITY; // The disk is inside the sphere, so it is missed as well.
+
+		double minT = tMax;
+
+		// (1) The sphere intersections that lie on the dome's side of the plain.
+		double sqrtDelta = Math.sqrt(delta);
+		double t0 = (-b - sqrtDelta) / 2.0, t1 = (-b + sqrtDelta) / 2.0;
+		if (t0 > tMin && plain.substitute(o.x + t0 * d.x, o.y + t0 * d.y, o.z + t0 * d.z) >= 0)
+			minT = Math.min(minT, t0);
+		else if (t1 > tMin && t1 < minT && plain.substitute(o.x + t1 * d.x, o.y + t1 * d.y, o.z + t1 * d.z) >= 0)
+			minT = t1;
+
+		// (2) The intersection with the disk.
+		double t = plain.intersectT(ray, tMin, minT);
+		if (t != Double.POSITIVE_INFINITY) {
+			double px = (o.x + t * d.x) - center.x, py = (o.y + t * d.y) - center.y, pz = (o.z + t * d.z) - center.z;
+			if (px * px + py * py + pz * pz <= radius * radius)
+				minT = t;
+		}
+
+		return minT < tMax ? minT : Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public Hit hitAt(Ray ray, double t) {
+		// The outer normal at the intersection point. The disk is hit exactly at
+		// the plain's distance, since both are computed the same way.
+		Vec normal = t == plain.intersectT(ray, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)
+				? plain.normal().neg()
+				: ray.add(t).sub(sphere.center()).normalize();
+
+		// A ray that leaves through the outer normal's side started inside the dome.
+		boolean isWithin = normal.dot(ray.direction()) > 0;
+		return new Hit(t, isWithin ? normal.neg() : normal).setIsWithin(isWithin);
 	}
 }
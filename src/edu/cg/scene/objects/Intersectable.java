@@ -1,6 +1,7 @@
 package edu.cg.scene.objects;
 
 import edu.cg.algebra.Hit;
+import edu.cg.algebra.Ops;
 import edu.cg.algebra.Ray;
 
 public interface Intersectable {
@@ -15,4 +16,47 @@ public interface Intersectable {
 	 * @return The hit point of the ray with the object if exist and null otherwise. 
 	 */
 	public Hit intersect(Ray ray);
+	
+	/**
+	 * Finds the distance of the nearest hit of the ray with the object in the
+	 * range (tMin, tMax). Unlike intersect(Ray), no hit attributes (normal, inside
+	 * flag) are computed, so a search for the nearest object can reject the far
+	 * candidates without allocating anything, and compute the attributes of the
+	 * winner alone with hitAt(Ray, double).
+	 * 
+	 * The default implementation goes through intersect(Ray), so it only finds
+	 * the hits of that method: tMin must not be greater than Ops.epsilon.
+	 * 
+	 * @param ray the specified ray
+	 * @param tMin the distance along the ray below which hits are ignored
+	 * @param tMax the distance along the ray beyond which hits are ignored
+	 * @return The distance of the hit if exists and Double.POSITIVE_INFINITY otherwise.
+	 */
+	public default double intersectT(Ray ray, double tMin, double tMax) {
+		Hit hit = intersect(ray);
+		return hit != null && hit.t() > tMin && hit.t() < tMax ? hit.t() : Double.POSITIVE_INFINITY;
+	}
+	
+	/**
+	 * Computes the hit attributes of a hit that was found by intersectT.
+	 * 
+	 * @param ray the specified ray
+	 * @param t a distance that intersectT returned for the same ray
+	 * @return The hit point of the ray with the object at the given distance.
+	 */
+	public default Hit hitAt(Ray ray, double t) {
+		return intersect(ray);
+	}
+	
+	/**
+	 * Checks if the ray hits the object closer than the given distance, which
+	 * is all shadow rays need.
+	 * 
+	 * @param ray the specified ray
+	 * @param maxDistance the distance along the ray beyond which hits are ignored
+	 * @return true if the ray hits the object before maxDistance.
+	 */
+	public default boolean intersects(Ray ray, double maxDistance) {
+		return intersectT(ray, Ops.epsilon, maxDistance) < maxDistance;
+	}
 }
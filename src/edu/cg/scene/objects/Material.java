@@ -1,5 +1,8 @@
 package edu.cg.scene.objects;
 
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
 import edu.cg.algebra.Vec;
 
 public class Material {
@@ -71,8 +74,20 @@ public class Material {
 	 * @return an object representing a glass material.
 	 */
 	public static Material getGlassMaterial(boolean transparent) {
+		return getGlassMaterial(transparent, ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Creates a glass material, with a shininess that is drawn from the given
+	 * random generator. A seeded generator gives the same material every time.
+	 * 
+	 * @param transparent - indicates whether the material is transparent
+	 * @param rand - the random generator
+	 * @return an object representing a glass material.
+	 */
+	public static Material getGlassMaterial(boolean transparent, Random rand) {
 		Material mat = new Material();
-		int shininess = 1 + (int) (Math.random() * ((15 - 1) + 1));
+		int shininess = 1 + (int) (rand.nextDouble() * ((15 - 1) + 1));
 		mat.initKa(new Vec(0.1)).initKs(new Vec(0.1)).initShininess(shininess);
 		mat.initKd(new Vec(0.1));
 		mat.initReflectionIntensity(0.95);
@@ -94,20 +109,31 @@ public class Material {
 	 * @return Returns a random material.
 	 */
 	public static Material getRandomMaterial() {
-		boolean isTransparent = (Math.random() < 0.2 ? true : false);
-		boolean isReflect = (Math.random() < 0.2 ? true : false);
-		if (Math.random() < 0.1) {
-			return getGlassMaterial(isTransparent);
+		return getRandomMaterial(ThreadLocalRandom.current());
+	}
+
+	/**
+	 * Generates a random material from the given random generator. A seeded
+	 * generator gives the same sequence of materials every time.
+	 * 
+	 * @param rand - the random generator
+	 * @return Returns a random material.
+	 */
+	public static Material getRandomMaterial(Random rand) {
+		boolean isTransparent = (rand.nextDouble() < 0.2 ? true : false);
+		boolean isReflect = (rand.nextDouble() < 0.2 ? true : false);
+		if (rand.nextDouble() < 0.1) {
+			return getGlassMaterial(isTransparent, rand);
 		}
 		// Lets pick a random color
-		double rComponent = Math.random(), gComponent = Math.random(), bComponent = Math.random();
+		double rComponent = rand.nextDouble(), gComponent = rand.nextDouble(), bComponent = rand.nextDouble();
 		// Lets pick a random refraction intensity
-		double refractionIn = isTransparent ? Math.min(0.25+Math.random(), 1.0) : 0.0;
+		double refractionIn = isTransparent ? Math.min(0.25+rand.nextDouble(), 1.0) : 0.0;
 		// Lets pick a random reflection intensity
-		double reflectionIn = isReflect ? Math.min(0.25+Math.random(), 1.0) : 0.0;
+		double reflectionIn = isReflect ? Math.min(0.25+rand.nextDouble(), 1.0) : 0.0;
 		// Set random specular reflection
-		double specularIn =  Math.min(0.25+Math.random(), 1.0);
-		double randomRefractionIndex = 1.33 +  Math.random();
+		double specularIn =  Math.min(0.25+rand.nextDouble(), 1.0);
+		double randomRefractionIndex = 1.33 +  rand.nextDouble();
 		Material mat = new Material().initKa(new Vec(0.5*rComponent, 0.5*gComponent, 0.5*bComponent))
 				.initKd(new Vec(rComponent, gComponent, bComponent)).initKs(new Vec(specularIn))
 				.initReflectionIntensity(reflectionIn);
@@ -1,5 +1,6 @@
 package edu.cg.scene.objects;
 
+import edu.cg.algebra.AABB;
 import edu.cg.algebra.Hit;
 import edu.cg.algebra.Ops;
 import edu.cg.algebra.Point;
@@ -68,14 +69,65 @@ public class Plain extends Shape {
 		return abc.dot(p.toVec()) + d;
 	}
 
+	/**
+	 * A plain is unbounded, unless it is perpendicular to one of the axes. In
+	 * that case the box is flat along that axis.
+	 */
+	@Override
+	public AABB bounds() {
+		double inf = Double.POSITIVE_INFINITY;
+		if (a == 0 & b == 0 & c != 0)
+			return new AABB(new Point(-inf, -inf, -d / c), new Point(inf, inf, -d / c));
+		if (a == 0 & b != 0 & c == 0)
+			return new AABB(new Point(-inf, -d / b, -inf), new Point(inf, -d / b, inf));
+		if (a != 0 & b == 0 & c == 0)
+			return new AABB(new Point(-d / a, -inf, -inf), new Point(-d / a, inf, inf));
+		return AABB.INFINITE;
+	}
+
+	/**
+	 * Returns the point of the plain that is the closest to the origin.
+	 */
+	@Override
+	public Point centroid() {
+		Vec abc = new Vec(a, b, c);
+		return new Point().add(-d / abc.normSqr(), abc);
+	}
+
+	/**
+	 * A plain intersection is a single dot product and division.
+	 */
+	@Override
+	public double intersectionCost() {
+		return 0.5;
+	}
+
 	/**
 	 * Returns the ray intersection with the plain if exists, and null otherwise.
 	 */
 	@Override
 	public Hit intersect(Ray ray) {
-		Vec abc = new Vec(a, b, c);
+		double t = intersectT(ray, Ops.epsilon, Double.POSITIVE_INFINITY);
+		return t == Double.POSITIVE_INFINITY ? null : hitAt(ray, t);
+	}
 
-		double t = -substitute(ray.source()) / ray.direction().dot(abc);
-		return t > Ops.epsilon & t < Ops.infinity ? new Hit(t, normal(ray)) : null;
+	@Override
+	public double intersectT(Ray ray, double tMin, double tMax) {
+		Point o = ray.source();
+		Vec dir = ray.direction();
+		double t = -(a * o.x + b * o.y + c * o.z + d) / (dir.x * a + dir.y * b + dir.z * c);
+		return t > tMin & t < tMax & t < Ops.infinity ? t : Double.POSITIVE_INFINITY;
+	}
+
+	@Override
+	public Hit hitAt(Ray ray, double t) {
+		return new Hit(t, normal(ray));
+	}
+
+	/**
+	 * The allocation free version of substitute(Point).
+	 */
+	double substitute(double x, double y, double z) {
+		return a * x + b * y + c * z + d;
 	}
 }
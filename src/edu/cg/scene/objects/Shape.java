@@ -1,7 +1,40 @@
 package edu.cg.scene.objects;
 
+import edu.cg.algebra.AABB;
+import edu.cg.algebra.Point;
 
 public abstract class Shape implements Intersectable {
 	// An abstract class the represents a shape.
 	// You can add abstract methods here.
+
+	/**
+	 * Returns an axis-aligned box that contains the shape. Unbounded shapes
+	 * return AABB.INFINITE, which is also the default.
+	 * 
+	 * @return the bounding box of the shape.
+	 */
+	public AABB bounds() {
+		return AABB.INFINITE;
+	}
+
+	/**
+	 * Returns a representative point of the shape, which acceleration structures
+	 * use to sort and partition shapes. For bounded shapes it lies within the bounds.
+	 * The default is the center of the bounding box.
+	 * 
+	 * @return the centroid of the shape.
+	 */
+	public Point centroid() {
+		return bounds().center();
+	}
+
+	/**
+	 * Returns the estimated cost of a single intersect(Ray) call, relative to the
+	 * cost of intersecting a sphere (1.0).
+	 * 
+	 * @return the intersection cost.
+	 */
+	public double intersectionCost() {
+		return 1.0;
+	}
 }
@@ -34,42 +34,61 @@ public class Sphere extends Shape {
 		return this;
 	}
 	
+	public Point center() {
+		return center;
+	}
+	
+	public double radius() {
+		return radius;
+	}
+	
+	@Override
+	public AABB bounds() {
+		return new AABB(center.add(new Vec(-radius)), center.add(new Vec(radius)));
+	}
+	
+	@Override
+	public Point centroid() {
+		return center;
+	}
+	
+	@Override
+	public double intersectionCost() {
+		return 1.0;
+	}
+	
 	@Override
 	public Hit intersect(Ray ray) {
-		double b = ray.direction().mult(2.0).dot(ray.source().sub(this.center));
-		double c = ray.source().distSqr(this.center) - Math.pow(this.radius, 2);
+		double t = intersectT(ray, Ops.epsilon, Double.POSITIVE_INFINITY);
+		return t == Double.POSITIVE_INFINITY ? null : hitAt(ray, t);
+	}
+
+	@Override
+	public double intersectT(Ray ray, double tMin, double tMax) {
+		Point o = ray.source();
+		Vec d = ray.direction();
+		double ox = o.x - center.x, oy = o.y - center.y, oz = o.z - center.z;
+		double b = 2.0 * (d.x * ox + d.y * oy + d.z * oz);
+		double c = (ox * ox + oy * oy + oz * oz) - Math.pow(this.radius, 2);
 		// a = 1
 		double delta = Math.pow(b, 2) - 4.0 * c;
+		if (delta < 0)
+			return Double.POSITIVE_INFINITY;
 
-		if (delta >= 0) {
-			double t0 = ( - b - Math.sqrt(delta)) / 2.0;
-			double t1 = ( - b + Math.sqrt(delta)) / 2.0;
-			double minT = t0;
-
-			if (t0 < Ops.epsilon && t1 < Ops.epsilon){
-				// No intersection found
-				return null;
-			}
-
-			Vec normal; // The normal to the sphere at the intersection point.
-			boolean isWithinSphere = false;
-
-			if (t0 < Ops.epsilon && t1 >= Ops.epsilon){
-				// The ray source point is within the sphere
-				minT = t1;
-				isWithinSphere = true;
-				normal = this.normalize(ray.add(t1)).neg();
+		// The nearer intersection point t0, or t1 if t0 is behind the range
+		// (e.g. the ray source point is within the sphere).
+		double t0 = ( - b - Math.sqrt(delta)) / 2.0;
+		double t = t0 > tMin ? t0 : ( - b + Math.sqrt(delta)) / 2.0;
+		return t > tMin && t < tMax ? t : Double.POSITIVE_INFINITY;
+	}
 
-			} else {
-				// We found two intersection points, we take the closest one = t0.
-				normal = this.normalize(ray.add(t0));
-			}
+	@Override
+	public Hit hitAt(Ray ray, double t) {
+		Vec normal = this.normalize(ray.add(t)); // The outer normal at the intersection point.
 
-			Hit hit = new Hit(minT, normal);
-			hit.setIsWithin(isWithinSphere);
-			return hit;
-		}
-		return null;
+		// A ray that leaves the sphere through the intersection point is within the sphere.
+		boolean isWithinSphere = normal.dot(ray.direction()) > 0;
+		return new Hit(t, isWithinSphere ? normal.neg() : normal).setIsWithin(isWithinSphere);
 	}
 
 	/**
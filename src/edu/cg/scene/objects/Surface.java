@@ -1,6 +1,8 @@
 package edu.cg.scene.objects;
 
+import edu.cg.algebra.AABB;
 import edu.cg.algebra.Hit;
+import edu.cg.algebra.Point;
 import edu.cg.algebra.Ray;
 import edu.cg.algebra.Vec;
 
@@ -31,6 +33,30 @@ public class Surface implements Intersectable {
 		return hit;
 	}
 
+	@Override
+	public double intersectT(Ray ray, double tMin, double tMax) {
+		return shape.intersectT(ray, tMin, tMax);
+	}
+
+	@Override
+	public Hit hitAt(Ray ray, double t) {
+		Hit hit = shape.hitAt(ray, t);
+		hit.setSurface(this);
+		return hit;
+	}
+
+	public AABB bounds() {
+		return shape.bounds();
+	}
+
+	public Point centroid() {
+		return shape.centroid();
+	}
+
+	public double intersectionCost() {
+		return shape.intersectionCost();
+	}
+
 	public Vec Ka() {
 		return material.Ka;
 	}
@@ -62,16 +88,4 @@ public class Surface implements Intersectable {
 	public boolean isTransparent() {
 		return material.isTransparent;
 	}
-
-	// TODO: use this method for the refraction implementation (bonus)
-	// Returns the index of refraction of the first medium.
-	public double n1(Hit hit) {
-		return hit.isWithinTheSurface() ? material.refractionIndex : 1;
-	}
-
-	// TODO: use this method for the refraction implementation (bonus)
-	// Returns the index of refraction of the first medium.
-	public double n2(Hit hit) {
-		return hit.isWithinTheSurface() ? 1 : material.refractionIndex;
-	}
 }